@@ -1,9 +1,5 @@
 package de.cubeisland.libMinecraft;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.regex.Pattern;
-
 public enum ChatColor
 {
     BLACK('0', 0x0),
@@ -30,10 +26,8 @@ public enum ChatColor
     RESET('r', 0x15);
     
     public static final char COLOR_CHAR = '\u00A7';
-    private static final Pattern STRIP_COLOR_PATTERN;
-    private static final String CHARS = "0123456789AaBbCcDdEeFfKkLlMmNnOoRr";
-    private static final Map<Byte, ChatColor> BY_CODE;
-    private static final Map<Character, ChatColor> BY_CHAR;
+    private static final ChatColor[] BY_CODE;
+    private static final ChatColor[] BY_CHAR = new ChatColor[128];
     private final char character;
     private final byte code;
     private final String string;
@@ -55,19 +49,45 @@ public enum ChatColor
         return this.code;
     }
 
+    /**
+     * Checks whether this is a formatting code (magic, bold, strikethrough, underline or italic)
+     *
+     * @return true if this is a formatting code
+     */
+    public boolean isFormat()
+    {
+        return this.code >= MAGIC.code && this != RESET;
+    }
+
+    /**
+     * Checks whether this is a color
+     *
+     * @return true if this is a color
+     */
+    public boolean isColor()
+    {
+        return this.code < MAGIC.code;
+    }
+
+    /**
+     * Returns the color of the given character, upper and lower case are accepted
+     *
+     * @param character the character
+     * @return the color or null
+     */
     public static ChatColor getByCharacter(char character)
     {
-        return BY_CHAR.get(Character.valueOf(character));
+        return (character < 128 ? BY_CHAR[character] : null);
     }
 
     public static ChatColor getByCode(int code)
     {
-        return getByCode((byte)code);
+        return (code >= 0 && code < BY_CODE.length ? BY_CODE[code] : null);
     }
 
     public static ChatColor getByCode(byte code)
     {
-        return BY_CODE.get(Byte.valueOf(code));
+        return getByCode((int)code);
     }
 
     public static String stripColors(String string)
@@ -77,25 +97,78 @@ public enum ChatColor
             return null;
         }
 
-        return STRIP_COLOR_PATTERN.matcher(string).replaceAll("");
+        int i = indexOfCode(string, COLOR_CHAR, 0);
+        if (i < 0)
+        {
+            return string;
+        }
+        final int length = string.length();
+        char[] chars = new char[length];
+        string.getChars(0, length, chars, 0);
+        int written = i;
+        char c;
+        for (i += 2; i < length; ++i)
+        {
+            c = chars[i];
+            if (c == COLOR_CHAR && i + 1 < length && isCodeChar(chars[i + 1]))
+            {
+                ++i;
+                continue;
+            }
+            chars[written++] = c;
+        }
+
+        return new String(chars, 0, written);
     }
 
     public static String translateAlternateColorCodes(char colorChar, String text)
     {
+        int i = indexOfCode(text, colorChar, 0);
+        if (i < 0)
+        {
+            return text;
+        }
         char[] chars = text.toCharArray();
-        for (int i = 0; i < chars.length - 1; i++)
+        for (; i < chars.length - 1; i++)
         {
-            if ((chars[i] != colorChar) || (CHARS.indexOf(chars[(i + 1)]) <= -1))
+            if (chars[i] == colorChar && isCodeChar(chars[i + 1]))
             {
-                continue;
+                chars[i] = COLOR_CHAR;
+                i++;
             }
-            chars[i] = COLOR_CHAR;
-            i++;
         }
 
         return new String(chars);
     }
 
+    private static boolean isCodeChar(char c)
+    {
+        return c < 128 && BY_CHAR[c] != null;
+    }
+
+    /**
+     * Returns the index of the first color code introduced by the given char
+     *
+     * @param string the string
+     * @param colorChar the char introducing color codes
+     * @param start the index to start at
+     * @return the index of colorChar or -1
+     */
+    private static int indexOfCode(String string, char colorChar, int start)
+    {
+        final int end = string.length() - 1;
+        int i = string.indexOf(colorChar, start);
+        while (i >= 0 && i < end)
+        {
+            if (isCodeChar(string.charAt(i + 1)))
+            {
+                return i;
+            }
+            i = string.indexOf(colorChar, i + 1);
+        }
+        return -1;
+    }
+
     @Override
     public String toString()
     {
@@ -104,14 +177,13 @@ public enum ChatColor
 
     static
     {
-        STRIP_COLOR_PATTERN = Pattern.compile(COLOR_CHAR + "[" + CHARS + "]");
-        BY_CODE = new HashMap(values().length);
-        BY_CHAR = new HashMap(values().length);
+        BY_CODE = new ChatColor[values().length];
 
         for (ChatColor chatColor : values())
         {
-            BY_CHAR.put(Character.valueOf(chatColor.getChar()), chatColor);
-            BY_CODE.put(Byte.valueOf(chatColor.getCode()), chatColor);
+            BY_CHAR[chatColor.getChar()] = chatColor;
+            BY_CHAR[Character.toUpperCase(chatColor.getChar())] = chatColor;
+            BY_CODE[chatColor.getCode()] = chatColor;
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,414 @@
+package de.cubeisland.libMinecraft;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class tracks the formatting state of color coded strings
+ * to resolve the active format, wrap lines and truncate messages.
+ * The formatting state is packed into an int: the color code shifted by 8
+ * (0xFF if no color is set) combined with the style bits of FormattedText.
+ */
+public final class ChatFormatter
+{
+    /**
+     * The width of the client chat in pixels
+     */
+    public static final int CHAT_WIDTH = 320;
+    /**
+     * The average number of characters fitting into a chat line
+     */
+    public static final int CHAT_LENGTH = 55;
+    /**
+     * The format of text without any color codes
+     */
+    public static final int DEFAULT_FORMAT = FormattedText.NO_COLOR << 8;
+
+    private static final int DEFAULT_CHAR_WIDTH = 6;
+    private static final byte[] CHAR_WIDTHS = new byte[128];
+
+    static
+    {
+        for (int i = 0; i < CHAR_WIDTHS.length; ++i)
+        {
+            CHAR_WIDTHS[i] = DEFAULT_CHAR_WIDTH;
+        }
+        setWidth("!',.:;i|", 2);
+        setWidth("`l", 3);
+        setWidth(" It[]", 4);
+        setWidth("\"()*<>fk{}", 5);
+        setWidth("@~", 7);
+    }
+
+    private ChatFormatter()
+    {}
+
+    private static void setWidth(String chars, int width)
+    {
+        for (int i = 0; i < chars.length(); ++i)
+        {
+            CHAR_WIDTHS[chars.charAt(i)] = (byte)width;
+        }
+    }
+
+    /**
+     * Applies the given code to the format
+     *
+     * @param format the format
+     * @param code the code
+     * @return the new format
+     */
+    public static int applyCode(int format, ChatColor code)
+    {
+        if (code == ChatColor.RESET)
+        {
+            return DEFAULT_FORMAT;
+        }
+        if (code.isColor())
+        {
+            return code.getCode() << 8;
+        }
+        return format | (1 << (code.getCode() - ChatColor.MAGIC.getCode()));
+    }
+
+    /**
+     * Returns the format active at the end of the given text
+     *
+     * @param text the text
+     * @return the format
+     */
+    public static int getFormat(String text)
+    {
+        int format = DEFAULT_FORMAT;
+        final int end = text.length() - 1;
+        ChatColor code;
+        for (int i = text.indexOf(ChatColor.COLOR_CHAR); i >= 0 && i < end; i = text.indexOf(ChatColor.COLOR_CHAR, i + 1))
+        {
+            code = ChatColor.getByCharacter(text.charAt(i + 1));
+            if (code != null)
+            {
+                format = applyCode(format, code);
+                ++i;
+            }
+        }
+        return format;
+    }
+
+    /**
+     * Returns the color of the given format
+     *
+     * @param format the format
+     * @return the color or null if no color is set
+     */
+    public static ChatColor getColor(int format)
+    {
+        final int color = format >>> 8;
+        return (color == FormattedText.NO_COLOR ? null : ChatColor.getByCode(color));
+    }
+
+    /**
+     * Returns the style bits of the given format
+     *
+     * @param format the format
+     * @return the style bits
+     */
+    public static int getStyle(int format)
+    {
+        return format & 0xFF;
+    }
+
+    /**
+     * Returns the codes needed to continue the format active at the end of the given text
+     *
+     * @param text the text
+     * @return the codes
+     */
+    public static String getLastColors(String text)
+    {
+        return toCodes(getFormat(text));
+    }
+
+    /**
+     * Returns the codes which produce the given format
+     *
+     * @param format the format
+     * @return the codes
+     */
+    public static String toCodes(int format)
+    {
+        if (format == DEFAULT_FORMAT)
+        {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder(12);
+        appendCodes(sb, format);
+        return sb.toString();
+    }
+
+    private static void appendCodes(StringBuilder sb, int format)
+    {
+        final ChatColor color = getColor(format);
+        if (color != null)
+        {
+            sb.append(ChatColor.COLOR_CHAR).append(color.getChar());
+        }
+        final int style = getStyle(format);
+        for (int code = ChatColor.MAGIC.getCode(); code < ChatColor.RESET.getCode(); ++code)
+        {
+            if ((style & (1 << (code - ChatColor.MAGIC.getCode()))) != 0)
+            {
+                sb.append(ChatColor.COLOR_CHAR).append(ChatColor.getByCode(code).getChar());
+            }
+        }
+    }
+
+    /**
+     * Returns the width of the given character in the default client font
+     *
+     * @param c the character
+     * @param bold whether the character is bold
+     * @return the width in pixels, including the spacing
+     */
+    public static int getWidth(char c, boolean bold)
+    {
+        final int width = (c < 128 ? CHAR_WIDTHS[c] : DEFAULT_CHAR_WIDTH);
+        return (bold && c != ' ' ? width + 1 : width);
+    }
+
+    /**
+     * Returns the width of the given text in the default client font
+     *
+     * @param text the color coded text
+     * @return the width in pixels
+     */
+    public static int getWidth(String text)
+    {
+        return measure(text, true);
+    }
+
+    /**
+     * Returns the number of visible characters of the given text
+     *
+     * @param text the color coded text
+     * @return the number of characters without color codes
+     */
+    public static int getLength(String text)
+    {
+        return measure(text, false);
+    }
+
+    private static int measure(String text, boolean pixels)
+    {
+        final int length = text.length();
+        int format = DEFAULT_FORMAT;
+        int width = 0;
+        ChatColor code;
+        char c;
+        for (int i = 0; i < length; ++i)
+        {
+            c = text.charAt(i);
+            if (c == ChatColor.COLOR_CHAR && i + 1 < length)
+            {
+                code = ChatColor.getByCharacter(text.charAt(i + 1));
+                if (code != null)
+                {
+                    format = applyCode(format, code);
+                    ++i;
+                    continue;
+                }
+            }
+            width += (pixels ? getWidth(c, (format & FormattedText.BOLD) != 0) : 1);
+        }
+        return width;
+    }
+
+    /**
+     * Wraps the given text to lines of at most the given number of visible characters.
+     * Lines are broken at spaces if possible, the active format is repeated after each break.
+     * Spaces at the start of a line are dropped.
+     *
+     * @param text the color coded text
+     * @param length the maximum number of characters per line
+     * @return the lines
+     */
+    public static String[] wrap(String text, int length)
+    {
+        return wrap(text, length, false);
+    }
+
+    /**
+     * Wraps the given text to lines of at most the given width in the default client font.
+     * Lines are broken at spaces if possible, the active format is repeated after each break.
+     * Spaces at the start of a line are dropped.
+     *
+     * @param text the color coded text
+     * @param width the maximum width per line in pixels
+     * @return the lines
+     */
+    public static String[] wrapPixels(String text, int width)
+    {
+        return wrap(text, width, true);
+    }
+
+    private static String[] wrap(String text, int maxWidth, boolean pixels)
+    {
+        if (text == null)
+        {
+            throw new IllegalArgumentException("The text must not be null!");
+        }
+        if (maxWidth < 1)
+        {
+            throw new IllegalArgumentException("The width must be positive!");
+        }
+        final int length = text.length();
+        final List<String> lines = new ArrayList<String>();
+        final StringBuilder line = new StringBuilder(Math.min(length, 128));
+        int format = DEFAULT_FORMAT;
+        int lineFormat = DEFAULT_FORMAT;
+        int lineStart = 0;
+        int lineWidth = 0;
+        int lastSpace = -1;
+        int spaceFormat = DEFAULT_FORMAT;
+        int widthAfterSpace = 0;
+        boolean wrapped = false;
+        int width;
+        ChatColor code;
+        char c;
+        for (int i = 0; i < length; ++i)
+        {
+            c = text.charAt(i);
+            if (c == ChatColor.COLOR_CHAR && i + 1 < length)
+            {
+                code = ChatColor.getByCharacter(text.charAt(i + 1));
+                if (code != null)
+                {
+                    format = applyCode(format, code);
+                    ++i;
+                    continue;
+                }
+            }
+            if (c == '\n')
+            {
+                addLine(lines, line, text, lineFormat, lineStart, i);
+                lineFormat = format;
+                lineStart = i + 1;
+                lineWidth = 0;
+                lastSpace = -1;
+                wrapped = false;
+                continue;
+            }
+
+            if (c == ' ' && lineWidth == 0)
+            {
+                // lines never start with a space
+                lineFormat = format;
+                lineStart = i + 1;
+                continue;
+            }
+
+            width = (pixels ? getWidth(c, (format & FormattedText.BOLD) != 0) : 1);
+            if (lineWidth + width > maxWidth && lineWidth > 0)
+            {
+                wrapped = true;
+                if (c == ' ')
+                {
+                    // break at this space and drop it
+                    addLine(lines, line, text, lineFormat, lineStart, i);
+                    lineFormat = format;
+                    lineStart = i + 1;
+                    lineWidth = 0;
+                    lastSpace = -1;
+                    continue;
+                }
+                if (lastSpace >= 0)
+                {
+                    addLine(lines, line, text, lineFormat, lineStart, lastSpace);
+                    lineFormat = spaceFormat;
+                    lineStart = lastSpace + 1;
+                    lineWidth = widthAfterSpace;
+                    lastSpace = -1;
+                }
+                // the glyph may still not fit behind the word moved to the new line
+                if (lineWidth + width > maxWidth && lineWidth > 0)
+                {
+                    addLine(lines, line, text, lineFormat, lineStart, i);
+                    lineFormat = format;
+                    lineStart = i;
+                    lineWidth = 0;
+                }
+            }
+            lineWidth += width;
+            if (c == ' ')
+            {
+                lastSpace = i;
+                spaceFormat = format;
+                widthAfterSpace = 0;
+            }
+            else
+            {
+                widthAfterSpace += width;
+            }
+        }
+        if (lineWidth > 0 || !wrapped)
+        {
+            // trailing spaces don't start another line
+            addLine(lines, line, text, lineFormat, lineStart, length);
+        }
+        return lines.toArray(new String[lines.size()]);
+    }
+
+    private static void addLine(List<String> lines, StringBuilder line, String text, int format, int start, int end)
+    {
+        if (format == DEFAULT_FORMAT)
+        {
+            lines.add(text.substring(start, end));
+            return;
+        }
+        line.setLength(0);
+        appendCodes(line, format);
+        line.append(text, start, end);
+        lines.add(line.toString());
+    }
+
+    /**
+     * Truncates the given text to the given number of visible characters.
+     * Color codes are kept and never cut in half.
+     *
+     * @param text the color coded text
+     * @param length the maximum number of visible characters
+     * @return the truncated text or the text itself if it is short enough
+     */
+    public static String truncate(String text, int length)
+    {
+        if (text == null)
+        {
+            throw new IllegalArgumentException("The text must not be null!");
+        }
+        if (length < 0)
+        {
+            throw new IllegalArgumentException("The length must not be negative!");
+        }
+        final int textLength = text.length();
+        if (textLength <= length)
+        {
+            return text;
+        }
+        int visible = 0;
+        char c;
+        for (int i = 0; i < textLength; ++i)
+        {
+            c = text.charAt(i);
+            if (c == ChatColor.COLOR_CHAR && i + 1 < textLength && ChatColor.getByCharacter(text.charAt(i + 1)) != null)
+            {
+                ++i;
+                continue;
+            }
+            if (visible == length)
+            {
+                return text.substring(0, i);
+            }
+            ++visible;
+        }
+        return text;
+    }
+}
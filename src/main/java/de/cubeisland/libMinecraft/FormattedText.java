@@ -0,0 +1,249 @@
+package de.cubeisland.libMinecraft;
+
+/**
+ * This class represents a color coded string parsed into runs of equally formatted text.
+ * Every segment is a range of the original string together with its color and style,
+ * the color codes themselves are not part of any segment.
+ * Adjacent ranges with the same formatting are merged, so a segment
+ * may span codes which didn't change the formatting.
+ */
+public final class FormattedText
+{
+    /**
+     * The style bits, one for each formatting code
+     */
+    public static final int MAGIC = 1;
+    public static final int BOLD = 1 << 1;
+    public static final int STRIKETHROUGH = 1 << 2;
+    public static final int UNDERLINE = 1 << 3;
+    public static final int ITALIC = 1 << 4;
+
+    static final int NO_COLOR = 0xFF;
+
+    private final String text;
+    // start, end, color << 8 | style per segment
+    private final int[] segments;
+    private final int size;
+
+    private FormattedText(String text, int[] segments, int size)
+    {
+        this.text = text;
+        this.segments = segments;
+        this.size = size;
+    }
+
+    /**
+     * Parses the given color coded string
+     *
+     * @param text the text
+     * @return the parsed text
+     */
+    public static FormattedText parse(String text)
+    {
+        if (text == null)
+        {
+            throw new IllegalArgumentException("The text must not be null!");
+        }
+        final int length = text.length();
+        int[] segments = new int[12];
+        int size = 0;
+        int format = ChatFormatter.DEFAULT_FORMAT;
+        int start = 0;
+        int end;
+        ChatColor code;
+        char c;
+        for (int i = 0; i <= length; ++i)
+        {
+            code = null;
+            if (i < length)
+            {
+                c = text.charAt(i);
+                if (c != ChatColor.COLOR_CHAR || i + 1 >= length)
+                {
+                    continue;
+                }
+                code = ChatColor.getByCharacter(text.charAt(i + 1));
+                if (code == null)
+                {
+                    continue;
+                }
+            }
+
+            end = i;
+            if (end > start)
+            {
+                if (size > 0 && segments[size * 3 - 1] == format)
+                {
+                    // only codes which didn't change the format since the last segment
+                    segments[size * 3 - 2] = end;
+                }
+                else
+                {
+                    if ((size + 1) * 3 > segments.length)
+                    {
+                        int[] grown = new int[segments.length * 2];
+                        System.arraycopy(segments, 0, grown, 0, size * 3);
+                        segments = grown;
+                    }
+                    segments[size * 3] = start;
+                    segments[size * 3 + 1] = end;
+                    segments[size * 3 + 2] = format;
+                    ++size;
+                }
+            }
+            if (code == null)
+            {
+                break;
+            }
+            format = ChatFormatter.applyCode(format, code);
+            start = i + 2;
+            ++i;
+        }
+        return new FormattedText(text, segments, size);
+    }
+
+    private static int styleBit(ChatColor code)
+    {
+        return 1 << (code.getCode() - ChatColor.MAGIC.getCode());
+    }
+
+    /**
+     * Returns the original text
+     *
+     * @return the text
+     */
+    public String getText()
+    {
+        return this.text;
+    }
+
+    /**
+     * Returns the number of segments
+     *
+     * @return the number of segments
+     */
+    public int size()
+    {
+        return this.size;
+    }
+
+    /**
+     * Returns the start index of the segment in the original text
+     *
+     * @param segment the segment
+     * @return the start index (inclusive)
+     */
+    public int getStart(int segment)
+    {
+        this.checkSegment(segment);
+        return this.segments[segment * 3];
+    }
+
+    /**
+     * Returns the end index of the segment in the original text
+     *
+     * @param segment the segment
+     * @return the end index (exclusive)
+     */
+    public int getEnd(int segment)
+    {
+        this.checkSegment(segment);
+        return this.segments[segment * 3 + 1];
+    }
+
+    /**
+     * Returns the color of the segment
+     *
+     * @param segment the segment
+     * @return the color or null if no color was set
+     */
+    public ChatColor getColor(int segment)
+    {
+        this.checkSegment(segment);
+        final int color = this.segments[segment * 3 + 2] >>> 8;
+        return (color == NO_COLOR ? null : ChatColor.getByCode(color));
+    }
+
+    /**
+     * Returns the style bitmask of the segment
+     *
+     * @param segment the segment
+     * @return the style bits
+     */
+    public int getStyle(int segment)
+    {
+        this.checkSegment(segment);
+        return this.segments[segment * 3 + 2] & 0xFF;
+    }
+
+    /**
+     * Checks whether the segment has the given style
+     *
+     * @param segment the segment
+     * @param style the formatting code
+     * @return true if the segment has the style
+     */
+    public boolean hasStyle(int segment, ChatColor style)
+    {
+        if (style == null || !style.isFormat())
+        {
+            throw new IllegalArgumentException("The style must be a formatting code!");
+        }
+        return (this.getStyle(segment) & styleBit(style)) != 0;
+    }
+
+    /**
+     * Returns the text of the segment without color codes
+     *
+     * @param segment the segment
+     * @return the text
+     */
+    public String getSegmentText(int segment)
+    {
+        this.checkSegment(segment);
+        final int start = this.segments[segment * 3];
+        final int end = this.segments[segment * 3 + 1];
+        final StringBuilder sb = new StringBuilder(end - start);
+        appendPlain(sb, this.text, start, end);
+        return sb.toString();
+    }
+
+    /**
+     * Returns the text without any color codes
+     *
+     * @return the plain text
+     */
+    public String getPlainText()
+    {
+        StringBuilder sb = new StringBuilder(this.text.length());
+        for (int i = 0; i < this.size; ++i)
+        {
+            appendPlain(sb, this.text, this.segments[i * 3], this.segments[i * 3 + 1]);
+        }
+        return sb.toString();
+    }
+
+    private static void appendPlain(StringBuilder sb, String text, int start, int end)
+    {
+        // merged segments may span codes which didn't change the format
+        char c;
+        for (int i = start; i < end; ++i)
+        {
+            c = text.charAt(i);
+            if (c == ChatColor.COLOR_CHAR && i + 1 < text.length() && ChatColor.getByCharacter(text.charAt(i + 1)) != null)
+            {
+                ++i;
+                continue;
+            }
+            sb.append(c);
+        }
+    }
+
+    private void checkSegment(int segment)
+    {
+        if (segment < 0 || segment >= this.size)
+        {
+            throw new IndexOutOfBoundsException("Segment: " + segment + ", Size: " + this.size);
+        }
+    }
+}
@@ -1,10 +1,12 @@
 package de.cubeisland.libMinecraft;
 
-import java.net.URLDecoder;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.StringTokenizer;
+import java.util.NoSuchElementException;
 
 /**
  * This class contains some utillities to work with Strings
@@ -13,6 +15,8 @@ import java.util.StringTokenizer;
  */
 public final class StringUtils
 {
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
     /**
      * This method splits a string without RegExes
      *
@@ -58,42 +62,338 @@ public final class StringUtils
     }
 
     /**
-     * This method parses a query string
+     * This method splits a string at the given char
+     *
+     * @param delim the delimiter
+     * @param string the string to split
+     * @return an array containing the parts
+     */
+    public static String[] explode(char delim, String string)
+    {
+        return explode(delim, string, true);
+    }
+
+    /**
+     * This method splits a string at the given char.
+     * The parts are counted first, so no intermediate list is needed.
+     *
+     * @param delim the delimiter
+     * @param string the string to split
+     * @param keepEmptyParts whether to keep empty parts
+     * @return an array containing the parts
+     */
+    public static String[] explode(char delim, String string, boolean keepEmptyParts)
+    {
+        final int length = string.length();
+        int count = 0;
+        int offset = 0;
+        int pos;
+        while (offset <= length)
+        {
+            pos = string.indexOf(delim, offset);
+            if (pos < 0)
+            {
+                pos = length;
+            }
+            if (pos > offset || keepEmptyParts)
+            {
+                ++count;
+            }
+            offset = pos + 1;
+        }
+
+        String[] parts = new String[count];
+        int index = 0;
+        offset = 0;
+        while (offset <= length)
+        {
+            pos = string.indexOf(delim, offset);
+            if (pos < 0)
+            {
+                pos = length;
+            }
+            if (pos > offset || keepEmptyParts)
+            {
+                parts[index++] = string.substring(offset, pos);
+            }
+            offset = pos + 1;
+        }
+        return parts;
+    }
+
+    /**
+     * This method splits a string at the given char into the given array.
+     * If there are more parts than the array can hold, the last element
+     * contains the unsplit rest of the string.
+     *
+     * @param delim the delimiter
+     * @param string the string to split
+     * @param parts the array to put the parts in
+     * @return the number of parts put into the array
+     */
+    public static int explode(char delim, String string, String[] parts)
+    {
+        if (parts.length == 0)
+        {
+            return 0;
+        }
+        final int length = string.length();
+        final int last = parts.length - 1;
+        int count = 0;
+        int offset = 0;
+        int pos;
+        while (count < last && (pos = string.indexOf(delim, offset)) > -1)
+        {
+            parts[count++] = string.substring(offset, pos);
+            offset = pos + 1;
+        }
+        parts[count++] = string.substring(offset, length);
+        return count;
+    }
+
+    /**
+     * This method passes the parts of a string to the given handler without creating substrings.
+     * The handler always gets the same slice instance, which is only valid during the call.
+     *
+     * @param delim the delimiter
+     * @param string the string to split
+     * @param handler the handler
+     * @return the number of parts passed to the handler
+     */
+    public static int explode(char delim, CharSequence string, PartHandler handler)
+    {
+        final int length = string.length();
+        final Slice slice = new Slice(string);
+        int count = 0;
+        int start = 0;
+        for (int i = 0; i <= length; ++i)
+        {
+            if (i == length || string.charAt(i) == delim)
+            {
+                slice.set(start, i);
+                ++count;
+                if (!handler.handle(slice))
+                {
+                    break;
+                }
+                start = i + 1;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * This method lazily splits a string at the given char.
+     * The parts are slices of the string, they don't copy any characters.
+     *
+     * @param delim the delimiter
+     * @param string the string to split
+     * @return the parts
+     */
+    public static Iterable<CharSequence> split(final char delim, final CharSequence string)
+    {
+        return new Iterable<CharSequence>() {
+            public Iterator<CharSequence> iterator()
+            {
+                return new Iterator<CharSequence>() {
+                    private int offset = 0;
+
+                    public boolean hasNext()
+                    {
+                        return this.offset <= string.length();
+                    }
+
+                    public CharSequence next()
+                    {
+                        final int length = string.length();
+                        if (this.offset > length)
+                        {
+                            throw new NoSuchElementException();
+                        }
+                        int end = this.offset;
+                        while (end < length && string.charAt(end) != delim)
+                        {
+                            ++end;
+                        }
+                        Slice slice = new Slice(string);
+                        slice.set(this.offset, end);
+                        this.offset = end + 1;
+                        return slice;
+                    }
+
+                    public void remove()
+                    {
+                        throw new UnsupportedOperationException();
+                    }
+                };
+            }
+        };
+    }
+
+    /**
+     * This interface handles the parts of a split string
+     */
+    public interface PartHandler
+    {
+        /**
+         * Handles a part
+         *
+         * @param part the part, only valid during the call
+         * @return false to stop splitting
+         */
+        public boolean handle(CharSequence part);
+    }
+
+    /**
+     * This class represents a range of a char sequence without copying it
+     */
+    private static final class Slice implements CharSequence
+    {
+        private final CharSequence string;
+        private int start;
+        private int end;
+
+        private Slice(CharSequence string)
+        {
+            this.string = string;
+        }
+
+        private void set(int start, int end)
+        {
+            this.start = start;
+            this.end = end;
+        }
+
+        public int length()
+        {
+            return this.end - this.start;
+        }
+
+        public char charAt(int index)
+        {
+            if (index < 0 || index >= this.end - this.start)
+            {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Length: " + (this.end - this.start));
+            }
+            return this.string.charAt(this.start + index);
+        }
+
+        public CharSequence subSequence(int start, int end)
+        {
+            if (start < 0 || end > this.end - this.start || start > end)
+            {
+                throw new IndexOutOfBoundsException("Start: " + start + ", End: " + end + ", Length: " + (this.end - this.start));
+            }
+            Slice slice = new Slice(this.string);
+            slice.set(this.start + start, this.start + end);
+            return slice;
+        }
+
+        @Override
+        public String toString()
+        {
+            return this.string.subSequence(this.start, this.end).toString();
+        }
+    }
+
+    /**
+     * This method parses a query string.
+     * Keys without a value are mapped to null, repeated keys keep their last value.
      *
      * @param queryString the query string
      * @param params a map to put the values in
+     * @throws IllegalArgumentException if the query string contains malformed percent encodings
      */
-    public static void parseQueryString(String queryString, Map<String, String> params)
+    public static void parseQueryString(String queryString, final Map<String, String> params)
     {
         if (queryString == null || params == null)
         {
             return;
         }
-        if (queryString.length() > 0)
+        parseQueryString(queryString, new QueryHandler() {
+            public void handle(String key, String value)
+            {
+                params.put(key, value);
+            }
+        });
+    }
+
+    /**
+     * This method parses a query string and keeps all values of repeated keys.
+     * Keys without a value get a null value.
+     *
+     * @param queryString the query string
+     * @return the keys mapped to their values in order of appearance
+     * @throws IllegalArgumentException if the query string contains malformed percent encodings
+     */
+    public static Map<String, List<String>> parseQueryString(String queryString)
+    {
+        final Map<String, List<String>> params = new LinkedHashMap<String, List<String>>();
+        if (queryString == null)
         {
-            String token;
-            int offset;
-            StringTokenizer tokenizer = new StringTokenizer(queryString, "&");
-            while (tokenizer.hasMoreTokens())
+            return params;
+        }
+        parseQueryString(queryString, new QueryHandler() {
+            public void handle(String key, String value)
             {
-                token = tokenizer.nextToken();
-                if ((offset = token.indexOf("=")) > 0)
+                List<String> values = params.get(key);
+                if (values == null)
                 {
-                    params.put(urlDecode(token.substring(0, offset)), urlDecode(token.substring(offset + 1)));
+                    values = new ArrayList<String>(1);
+                    params.put(key, values);
                 }
-                else
+                values.add(value);
+            }
+        });
+        return params;
+    }
+
+    private static void parseQueryString(String queryString, QueryHandler handler)
+    {
+        final int length = queryString.length();
+        int start = 0;
+        int equals = -1;
+        char c;
+        for (int i = 0; i <= length; ++i)
+        {
+            c = (i < length ? queryString.charAt(i) : '&');
+            if (c == '=' && equals < 0)
+            {
+                equals = i;
+            }
+            else if (c == '&')
+            {
+                if (i > start)
                 {
-                    params.put(urlDecode(token), null);
+                    if (equals > start)
+                    {
+                        handler.handle(urlDecode(queryString, start, equals), urlDecode(queryString, equals + 1, i));
+                    }
+                    else
+                    {
+                        handler.handle(urlDecode(queryString, start, i), null);
+                    }
                 }
+                start = i + 1;
+                equals = -1;
             }
         }
     }
 
+    private interface QueryHandler
+    {
+        public void handle(String key, String value);
+    }
+
     /**
      * Decodes the percent encoding scheme.
      *
      * For example:
      * "an+example%20string" -> "an example string"
+     *
+     * @param string the encoded string
+     * @return the decoded string
+     * @throws IllegalArgumentException if the string contains malformed percent encodings
      */
     public static String urlDecode(String string)
     {
@@ -101,13 +401,84 @@ public final class StringUtils
         {
             return null;
         }
-        try
+        return urlDecode(string, 0, string.length());
+    }
+
+    private static String urlDecode(String string, int start, int end)
+    {
+        boolean plus = false;
+        int percent = -1;
+        char c;
+        for (int i = start; i < end; ++i)
         {
-            return URLDecoder.decode(string, "UTF-8");
+            c = string.charAt(i);
+            if (c == '%')
+            {
+                percent = i;
+                break;
+            }
+            if (c == '+')
+            {
+                plus = true;
+            }
+        }
+        if (percent < 0)
+        {
+            // nothing to decode
+            String part = string.substring(start, end);
+            return (plus ? part.replace('+', ' ') : part);
+        }
+
+        StringBuilder sb = new StringBuilder(end - start);
+        sb.append(string, start, percent);
+        if (plus)
+        {
+            for (int i = 0; i < sb.length(); ++i)
+            {
+                if (sb.charAt(i) == '+')
+                {
+                    sb.setCharAt(i, ' ');
+                }
+            }
         }
-        catch (Exception e)
+        byte[] bytes = null;
+        int byteCount;
+        int high;
+        int low;
+        int i = percent;
+        while (i < end)
         {
-            return string;
+            c = string.charAt(i);
+            if (c == '%')
+            {
+                if (bytes == null)
+                {
+                    bytes = new byte[(end - i) / 3];
+                }
+                byteCount = 0;
+                while (i < end && string.charAt(i) == '%')
+                {
+                    if (i + 2 >= end)
+                    {
+                        throw new IllegalArgumentException("Incomplete percent encoding at index " + i + "!");
+                    }
+                    high = Character.digit(string.charAt(i + 1), 16);
+                    low = Character.digit(string.charAt(i + 2), 16);
+                    if (high < 0 || low < 0)
+                    {
+                        throw new IllegalArgumentException("Illegal percent encoding at index " + i + "!");
+                    }
+                    bytes[byteCount++] = (byte)((high << 4) | low);
+                    i += 3;
+                }
+                sb.append(new String(bytes, 0, byteCount, UTF8));
+            }
+            else
+            {
+                sb.append(c == '+' ? ' ' : c);
+                ++i;
+            }
         }
+        return sb.toString();
     }
 }
@@ -0,0 +1,316 @@
+package de.cubeisland.libMinecraft.command;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class represents the compiled argument schema of a command.
+ * A schema looks like this: "&lt;player:string&gt; &lt;amount:int&gt; [radius:double]"
+ * Arguments in angle brackets are required, arguments in square brackets are optional.
+ */
+public final class ArgumentSchema
+{
+    private final Argument[] arguments;
+    private final int required;
+    private final String usage;
+
+    private ArgumentSchema(Argument[] arguments, int required, String usage)
+    {
+        this.arguments = arguments;
+        this.required = required;
+        this.usage = usage;
+    }
+
+    /**
+     * Compiles the given schema string
+     *
+     * @param schema the schema
+     * @return the compiled schema or null if the schema is empty
+     * @throws IllegalArgumentException if the schema is malformed
+     */
+    public static ArgumentSchema compile(String schema)
+    {
+        if (schema == null)
+        {
+            throw new IllegalArgumentException("The schema must not be null!");
+        }
+        schema = schema.trim();
+        if (schema.length() == 0)
+        {
+            return null;
+        }
+
+        List<Argument> arguments = new ArrayList<Argument>();
+        StringBuilder usage = new StringBuilder();
+        int required = 0;
+        final int length = schema.length();
+        int offset = 0;
+        int end;
+        char open;
+        char close;
+        String name;
+        String type;
+        while (offset < length)
+        {
+            open = schema.charAt(offset);
+            if (open == ' ')
+            {
+                ++offset;
+                continue;
+            }
+            if (open == '<')
+            {
+                close = '>';
+            }
+            else if (open == '[')
+            {
+                close = ']';
+            }
+            else
+            {
+                throw new IllegalArgumentException("Unexpected character '" + open + "' at " + offset + " in the schema '" + schema + "'!");
+            }
+            end = schema.indexOf(close, offset);
+            if (end < 0)
+            {
+                throw new IllegalArgumentException("Missing '" + close + "' in the schema '" + schema + "'!");
+            }
+            name = schema.substring(offset + 1, end).trim();
+            type = "string";
+            int colonOffset = name.indexOf(':');
+            if (colonOffset >= 0)
+            {
+                type = name.substring(colonOffset + 1).trim();
+                name = name.substring(0, colonOffset).trim();
+            }
+            if (name.length() == 0)
+            {
+                throw new IllegalArgumentException("Missing argument name in the schema '" + schema + "'!");
+            }
+            if (open == '<')
+            {
+                if (required < arguments.size())
+                {
+                    throw new IllegalArgumentException("The required argument '" + name + "' follows an optional argument!");
+                }
+                ++required;
+            }
+            arguments.add(new Argument(name, Type.getByName(type), open == '<'));
+            if (usage.length() > 0)
+            {
+                usage.append(' ');
+            }
+            usage.append(open).append(name).append(close);
+            offset = end + 1;
+        }
+
+        return new ArgumentSchema(arguments.toArray(new Argument[arguments.size()]), required, usage.toString());
+    }
+
+    /**
+     * Parses the parameters of the given arguments into their primitive values
+     *
+     * @param args the command arguments
+     * @return the index of the first invalid parameter, a value &gt;= args.size() if parameters are missing or -1 if everything is valid
+     */
+    public int parse(CommandArgs args)
+    {
+        final int size = args.size();
+        if (size < this.required)
+        {
+            return size;
+        }
+        final int count = Math.min(size, this.arguments.length);
+        long[] longValues = null;
+        double[] doubleValues = null;
+        String param;
+        for (int i = 0; i < count; ++i)
+        {
+            param = args.getString(i);
+            try
+            {
+                switch (this.arguments[i].type)
+                {
+                    case INT:
+                        if (longValues == null)
+                        {
+                            longValues = new long[count];
+                        }
+                        longValues[i] = Integer.parseInt(param);
+                        break;
+                    case LONG:
+                        if (longValues == null)
+                        {
+                            longValues = new long[count];
+                        }
+                        longValues[i] = Long.parseLong(param);
+                        break;
+                    case DOUBLE:
+                        if (doubleValues == null)
+                        {
+                            doubleValues = new double[count];
+                        }
+                        doubleValues[i] = Double.parseDouble(param);
+                        break;
+                    case BOOLEAN:
+                        if (longValues == null)
+                        {
+                            longValues = new long[count];
+                        }
+                        longValues[i] = parseBoolean(param);
+                        if (longValues[i] < 0)
+                        {
+                            return i;
+                        }
+                        break;
+                    default:
+                }
+            }
+            catch (NumberFormatException e)
+            {
+                return i;
+            }
+        }
+        args.setParsedValues(this, longValues, doubleValues);
+        return -1;
+    }
+
+    private static long parseBoolean(String string)
+    {
+        for (String word : CommandArgs.TRUE_WORDS)
+        {
+            if (word.equalsIgnoreCase(string))
+            {
+                return 1;
+            }
+        }
+        for (String word : CommandArgs.FALSE_WORDS)
+        {
+            if (word.equalsIgnoreCase(string))
+            {
+                return 0;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the number of arguments
+     *
+     * @return the number of arguments
+     */
+    public int size()
+    {
+        return this.arguments.length;
+    }
+
+    /**
+     * Returns the number of required arguments
+     *
+     * @return the number of required arguments
+     */
+    public int getRequired()
+    {
+        return this.required;
+    }
+
+    /**
+     * Returns the argument at the given index
+     *
+     * @param index the index
+     * @return the argument or null if there is none
+     */
+    public Argument getArgument(int index)
+    {
+        if (index >= 0 && index < this.arguments.length)
+        {
+            return this.arguments[index];
+        }
+        return null;
+    }
+
+    /**
+     * Returns the usage string generated from this schema
+     *
+     * @return the usage
+     */
+    public String getUsage()
+    {
+        return this.usage;
+    }
+
+    @Override
+    public String toString()
+    {
+        return this.usage;
+    }
+
+    /**
+     * This represents a single argument of a schema
+     */
+    public static final class Argument
+    {
+        private final String name;
+        private final Type type;
+        private final boolean required;
+
+        private Argument(String name, Type type, boolean required)
+        {
+            this.name = name;
+            this.type = type;
+            this.required = required;
+        }
+
+        public String getName()
+        {
+            return this.name;
+        }
+
+        public Type getType()
+        {
+            return this.type;
+        }
+
+        public boolean isRequired()
+        {
+            return this.required;
+        }
+    }
+
+    /**
+     * The types an argument can have
+     */
+    public enum Type
+    {
+        STRING("string"),
+        PLAYER("player"),
+        INT("int"),
+        LONG("long"),
+        DOUBLE("double"),
+        BOOLEAN("boolean");
+
+        private final String name;
+
+        private Type(String name)
+        {
+            this.name = name;
+        }
+
+        public String getName()
+        {
+            return this.name;
+        }
+
+        public static Type getByName(String name)
+        {
+            for (Type type : values())
+            {
+                if (type.name.equalsIgnoreCase(name))
+                {
+                    return type;
+                }
+            }
+            throw new IllegalArgumentException("Unknown argument type '" + name + "'!");
+        }
+    }
+}
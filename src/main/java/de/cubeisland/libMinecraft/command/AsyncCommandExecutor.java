@@ -0,0 +1,188 @@
+package de.cubeisland.libMinecraft.command;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class executes sub commands off the main thread.
+ * The pool and its queue are bounded and every command gets cancelled
+ * once its timeout is exceeded, so stuck commands can't block the pool forever.
+ * The threads are created on the first submitted command and stop after being idle for a minute.
+ */
+final class AsyncCommandExecutor
+{
+    private static final long IDLE_TIMEOUT = 60;
+
+    private final String name;
+    private final int threads;
+    private final int queueSize;
+    private ThreadPoolExecutor executor;
+    private ScheduledThreadPoolExecutor watchdog;
+
+    /**
+     * Initializes the executor
+     *
+     * @param name the name used for the threads
+     * @param threads the maximum number of threads
+     * @param queueSize the maximum number of waiting commands
+     */
+    public AsyncCommandExecutor(String name, int threads, int queueSize)
+    {
+        if (threads < 1)
+        {
+            throw new IllegalArgumentException("There must be at least 1 thread!");
+        }
+        if (queueSize < 1)
+        {
+            throw new IllegalArgumentException("The queue size must be at least 1!");
+        }
+        this.name = name;
+        this.threads = threads;
+        this.queueSize = queueSize;
+        this.executor = null;
+        this.watchdog = null;
+    }
+
+    /**
+     * Submits a task
+     *
+     * @param task the task
+     * @param timeout the timeout in milliseconds, 0 for none
+     * @param timeoutHandler gets called after the task got cancelled because of the timeout
+     * @return the future of the task
+     * @throws RejectedExecutionException if the queue is full or the executor got shut down
+     */
+    public synchronized Future<?> submit(Runnable task, long timeout, final Runnable timeoutHandler)
+    {
+        if (this.executor == null)
+        {
+            ThreadFactory threadFactory = new CommandThreadFactory(this.name);
+            this.executor = new ThreadPoolExecutor(this.threads, this.threads, IDLE_TIMEOUT, TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>(this.queueSize), threadFactory);
+            this.executor.allowCoreThreadTimeOut(true);
+            this.watchdog = new ScheduledThreadPoolExecutor(1, threadFactory);
+            this.watchdog.setKeepAliveTime(IDLE_TIMEOUT, TimeUnit.SECONDS);
+            this.watchdog.allowCoreThreadTimeOut(true);
+        }
+        final WatchedTask watchedTask = new WatchedTask(task);
+        this.executor.execute(watchedTask);
+        if (timeout > 0)
+        {
+            Watchdog watchdogTask = new Watchdog(watchedTask, timeoutHandler);
+            watchedTask.watchdog = watchdogTask;
+            watchdogTask.future = this.watchdog.schedule(watchdogTask, timeout, TimeUnit.MILLISECONDS);
+            if (watchedTask.isDone())
+            {
+                // the task completed before its watchdog got scheduled
+                watchdogTask.release();
+            }
+        }
+        return watchedTask;
+    }
+
+    /**
+     * Cancels all running and waiting commands and stops the threads.
+     * The executor can be used again afterwards.
+     */
+    public synchronized void shutdown()
+    {
+        if (this.executor != null)
+        {
+            this.executor.shutdownNow();
+            this.watchdog.shutdownNow();
+            this.executor = null;
+            this.watchdog = null;
+        }
+    }
+
+    /**
+     * A submitted command, which releases its watchdog once it is done
+     */
+    private static final class WatchedTask extends FutureTask<Object>
+    {
+        private volatile Watchdog watchdog;
+
+        private WatchedTask(Runnable task)
+        {
+            super(task, null);
+            this.watchdog = null;
+        }
+
+        @Override
+        protected void done()
+        {
+            Watchdog watchdogTask = this.watchdog;
+            if (watchdogTask != null)
+            {
+                watchdogTask.release();
+            }
+        }
+    }
+
+    /**
+     * Cancels a command once its timeout is exceeded.
+     * A cancelled watchdog stays in the queue of the scheduler until its delay expires,
+     * so it drops the references to the command as soon as it gets released.
+     */
+    private static final class Watchdog implements Runnable
+    {
+        private volatile WatchedTask task;
+        private volatile Runnable timeoutHandler;
+        private volatile ScheduledFuture<?> future;
+
+        private Watchdog(WatchedTask task, Runnable timeoutHandler)
+        {
+            this.task = task;
+            this.timeoutHandler = timeoutHandler;
+            this.future = null;
+        }
+
+        public void run()
+        {
+            final WatchedTask watchedTask = this.task;
+            final Runnable handler = this.timeoutHandler;
+            this.release();
+            if (watchedTask != null && watchedTask.cancel(true) && handler != null)
+            {
+                handler.run();
+            }
+        }
+
+        private void release()
+        {
+            this.task = null;
+            this.timeoutHandler = null;
+            ScheduledFuture<?> scheduled = this.future;
+            if (scheduled != null)
+            {
+                scheduled.cancel(false);
+            }
+        }
+    }
+
+    private static final class CommandThreadFactory implements ThreadFactory
+    {
+        private final String name;
+        private final AtomicInteger counter;
+
+        private CommandThreadFactory(String name)
+        {
+            this.name = name;
+            this.counter = new AtomicInteger(0);
+        }
+
+        public Thread newThread(Runnable r)
+        {
+            Thread thread = new Thread(r, this.name + "-" + this.counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -1,18 +1,21 @@
 package de.cubeisland.libMinecraft.command;
 
+import de.cubeisland.libMinecraft.translation.LocalizedPlugin;
+import de.cubeisland.libMinecraft.translation.MessageKey;
 import de.cubeisland.libMinecraft.translation.TranslatablePlugin;
 import de.cubeisland.libMinecraft.translation.Translation;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.RejectedExecutionException;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
+import org.bukkit.command.TabCompleter;
 import org.bukkit.permissions.Permission;
 import org.bukkit.permissions.PermissionDefault;
 import org.bukkit.plugin.Plugin;
@@ -23,14 +26,37 @@ import org.bukkit.plugin.PluginManager;
  *
  * @author Phillip Schichtel
  */
-public class BaseCommand implements CommandExecutor
+public class BaseCommand implements CommandExecutor, TabCompleter
 {
+    private static final MessageKey COMMAND_BUSY = MessageKey.of("command_busy");
+    private static final MessageKey COMMAND_COOLDOWN = MessageKey.of("command_cooldown");
+    private static final MessageKey COMMAND_INTERNALERROR = MessageKey.of("command_internalerror");
+    private static final MessageKey COMMAND_INVALIDARGUMENT = MessageKey.of("command_invalidargument");
+    private static final MessageKey COMMAND_NOTFOUND = MessageKey.of("command_notfound");
+    private static final MessageKey COMMAND_PERMDENIED = MessageKey.of("command_permdenied");
+    private static final MessageKey COMMAND_TIMEOUT = MessageKey.of("command_timeout");
+    private static final MessageKey HELP_CMDNOTFOUND = MessageKey.of("help_cmdnotfound");
+    private static final MessageKey HELP_LISTOFCOMMANDS = MessageKey.of("help_listofcommands");
+    private static final MessageKey HELP_PAGE = MessageKey.of("help_page");
+    private static final MessageKey LANGUAGE_CHANGED = MessageKey.of("language_changed");
+    private static final MessageKey LANGUAGE_CURRENT = MessageKey.of("language_current");
+    private static final MessageKey LANGUAGE_FAILED = MessageKey.of("language_failed");
+    private static final MessageKey RELOAD_COMPLETED = MessageKey.of("reload_completed");
+    private static final MessageKey STATS_COMMAND = MessageKey.of("stats_command");
+    private static final MessageKey STATS_HEADER = MessageKey.of("stats_header");
+    private static final MessageKey STATS_RESET = MessageKey.of("stats_reset");
+    private static final MessageKey VERSION_PLUGINVERSION = MessageKey.of("version_pluginversion");
+
     private final TranslatablePlugin plugin;
     private final PluginManager pm;
-    private final Map<Object, Set<String>> objectCommandMap;
-    private final Map<String, SubCommand> commands;
-    private final Map<String, String> aliases;
+    private final Object registryLock;
+    private volatile CommandRegistry registry;
     private String defaultCommand;
+    private final PermissionCache permissionCache;
+    private final AsyncCommandExecutor asyncExecutor;
+    private long asyncTimeout;
+    private final Map<Translation, HelpIndex> helpIndices;
+    private int helpPageSize;
 
     private final Permission parentPermission;
     private final String permissionBase;
@@ -56,9 +82,13 @@ public class BaseCommand implements CommandExecutor
         }
         this.plugin = plugin;
         this.pm = plugin.getServer().getPluginManager();
-        this.objectCommandMap = new HashMap<Object, Set<String>>();
-        this.commands = new HashMap<String, SubCommand>();
-        this.aliases = new HashMap<String, String>();
+        this.registryLock = new Object();
+        this.registry = CommandRegistry.EMPTY;
+        this.permissionCache = new PermissionCache(30000);
+        this.asyncExecutor = new AsyncCommandExecutor(plugin.getName() + "-Command", Math.max(2, Runtime.getRuntime().availableProcessors()), 64);
+        this.asyncTimeout = 30000;
+        this.helpIndices = new WeakHashMap<Translation, HelpIndex>();
+        this.helpPageSize = 5;
 
         this.permissionBase = permissionBase;
         this.parentPermission = new Permission(permissionBase + "*", parentDefault);
@@ -70,9 +100,29 @@ public class BaseCommand implements CommandExecutor
 
     }
 
-    private String _(String key, Object... params)
+    /**
+     * Returns the translation for the given sender
+     *
+     * @param sender the sender
+     * @return the translation
+     */
+    public Translation getTranslation(CommandSender sender)
+    {
+        if (this.plugin instanceof LocalizedPlugin)
+        {
+            return ((LocalizedPlugin)this.plugin).getTranslation(sender);
+        }
+        return this.plugin.getTranslation();
+    }
+
+    private String _(CommandSender sender, String key, Object... params)
+    {
+        return this.getTranslation(sender).translate(key, params);
+    }
+
+    private String _(CommandSender sender, MessageKey key, Object... params)
     {
-        return this.plugin.getTranslation().translate(key, params);
+        return this.getTranslation(sender).translate(key, params);
     }
 
     public boolean onCommand(CommandSender sender, org.bukkit.command.Command command, String label, String[] args)
@@ -93,38 +143,242 @@ public class BaseCommand implements CommandExecutor
             Permission permission = subCommand.getPermission();
             if (permission != null && !sender.hasPermission(permission))
             {
-                sender.sendMessage(_("command_permdenied"));
+                subCommand.getStats().recordPermissionDenial();
+                sender.sendMessage(_(sender, COMMAND_PERMDENIED));
             }
             else
             {
                 try
                 {
                     CommandArgs commandArgs = new CommandArgs(this, label, subCommand, args);
-                    if (!subCommand.execute(sender, commandArgs))
+                    long cooldown;
+                    int invalidParam = subCommand.parseArguments(commandArgs);
+                    if (invalidParam >= 0 && invalidParam < commandArgs.size())
                     {
-                        sender.sendMessage("/" + label + " " + commandArgs.getLabel() + " " + subCommand.getUsage());
+                        sender.sendMessage(_(sender, COMMAND_INVALIDARGUMENT, subCommand.getArgumentSchema().getArgument(invalidParam).getName(), commandArgs.getString(invalidParam)));
+                    }
+                    else if (invalidParam >= 0)
+                    {
+                        this.sendUsage(sender, label, subCommand, commandArgs);
+                    }
+                    else if ((cooldown = subCommand.acquireCooldown(sender)) > 0)
+                    {
+                        sender.sendMessage(_(sender, COMMAND_COOLDOWN, (cooldown + 999) / 1000));
+                    }
+                    else if (subCommand.isAsync())
+                    {
+                        this.dispatchAsync(sender, label, subCommand, commandArgs);
+                    }
+                    else
+                    {
+                        this.dispatch(sender, label, subCommand, commandArgs);
                     }
-                    return true;
-                }
-                catch (CommandException e)
-                {
-                    sender.sendMessage(e.getLocalizedMessage());
                 }
                 catch (Throwable t)
                 {
-                    sender.sendMessage(_("command_internalerror"));
+                    sender.sendMessage(_(sender, COMMAND_INTERNALERROR));
                     t.printStackTrace(System.err);
                 }
             }
         }
         else
         {
-            sender.sendMessage(_("command_notfound"));
+            sender.sendMessage(_(sender, COMMAND_NOTFOUND));
         }
 
         return true;
     }
 
+    private void sendUsage(CommandSender sender, String label, SubCommand subCommand, CommandArgs commandArgs)
+    {
+        sender.sendMessage("/" + label + " " + commandArgs.getLabel() + " " + subCommand.getUsage());
+    }
+
+    private void dispatch(CommandSender sender, String label, SubCommand subCommand, CommandArgs commandArgs)
+    {
+        final CommandStats stats = subCommand.getStats();
+        final long start = System.nanoTime();
+        try
+        {
+            boolean success = subCommand.execute(sender, commandArgs);
+            stats.recordInvocation(System.nanoTime() - start);
+            if (!success)
+            {
+                this.sendUsage(sender, label, subCommand, commandArgs);
+            }
+        }
+        catch (CommandException e)
+        {
+            stats.recordInvocation(System.nanoTime() - start);
+            stats.recordCommandError();
+            sender.sendMessage(e.getLocalizedMessage());
+        }
+        catch (Throwable t)
+        {
+            stats.recordInvocation(System.nanoTime() - start);
+            stats.recordInternalError();
+            sender.sendMessage(_(sender, COMMAND_INTERNALERROR));
+            t.printStackTrace(System.err);
+        }
+    }
+
+    private void dispatchAsync(CommandSender sender, final String label, final SubCommand subCommand, final CommandArgs commandArgs)
+    {
+        final CommandSender queuedSender = MainThreadSender.wrap(this.plugin, sender);
+        long timeout = subCommand.getTimeout();
+        if (timeout == 0)
+        {
+            timeout = this.asyncTimeout;
+        }
+        try
+        {
+            this.asyncExecutor.submit(new Runnable() {
+                public void run()
+                {
+                    dispatch(queuedSender, label, subCommand, commandArgs);
+                }
+            }, timeout, new Runnable() {
+                public void run()
+                {
+                    queuedSender.sendMessage(_(queuedSender, COMMAND_TIMEOUT));
+                }
+            });
+        }
+        catch (RejectedExecutionException e)
+        {
+            // the command didn't run, so it must not cost the sender a use
+            subCommand.releaseCooldown(sender);
+            sender.sendMessage(_(sender, COMMAND_BUSY));
+        }
+    }
+
+    /**
+     * Sets the default timeout of async commands
+     *
+     * @param timeout the timeout in milliseconds, 0 for none
+     * @return fluent interface
+     */
+    public BaseCommand setAsyncTimeout(long timeout)
+    {
+        if (timeout < 0)
+        {
+            throw new IllegalArgumentException("The timeout must not be negative!");
+        }
+        this.asyncTimeout = timeout;
+        return this;
+    }
+
+    /**
+     * Cancels all running async commands and stops their threads.
+     * This should be called from the plugin's onDisable(), the reload command does it itself.
+     *
+     * @return fluent interface
+     */
+    public BaseCommand shutdownAsync()
+    {
+        this.asyncExecutor.shutdown();
+        return this;
+    }
+
+    /**
+     * Completes the sub command names and aliases the sender may use.
+     * Arguments are completed by the argument schema of the sub command,
+     * sub commands without a schema fall back to the default completion.
+     */
+    public List<String> onTabComplete(CommandSender sender, org.bukkit.command.Command command, String label, String[] args)
+    {
+        if (args.length <= 1)
+        {
+            CommandTrie index = this.registry.getIndex();
+            List<String> candidates = index.complete(args.length > 0 ? args[0] : "");
+            Iterator<String> iter = candidates.iterator();
+            while (iter.hasNext())
+            {
+                if (!this.permissionCache.isPermitted(sender, index.get(iter.next())))
+                {
+                    iter.remove();
+                }
+            }
+            return candidates;
+        }
+
+        SubCommand subCommand = this.getCommand(args[0]);
+        if (subCommand == null || !this.permissionCache.isPermitted(sender, subCommand))
+        {
+            return Collections.emptyList();
+        }
+        ArgumentSchema schema = subCommand.getArgumentSchema();
+        if (schema == null)
+        {
+            return null;
+        }
+        ArgumentSchema.Argument argument = schema.getArgument(args.length - 2);
+        if (argument == null)
+        {
+            return Collections.emptyList();
+        }
+        switch (argument.getType())
+        {
+            case PLAYER:
+                return null;
+            case BOOLEAN:
+                String prefix = args[args.length - 1].toLowerCase();
+                List<String> candidates = new ArrayList<String>();
+                for (String word : CommandArgs.TRUE_WORDS)
+                {
+                    if (word.startsWith(prefix))
+                    {
+                        candidates.add(word);
+                    }
+                }
+                for (String word : CommandArgs.FALSE_WORDS)
+                {
+                    if (word.startsWith(prefix))
+                    {
+                        candidates.add(word);
+                    }
+                }
+                return candidates;
+            default:
+                return Collections.emptyList();
+        }
+    }
+
+    /**
+     * Invalidates the cached permissions of the given sender used for completion
+     *
+     * @param sender the sender
+     * @return fluent interface
+     */
+    public BaseCommand invalidatePermissions(CommandSender sender)
+    {
+        this.permissionCache.invalidate(sender);
+        return this;
+    }
+
+    /**
+     * Invalidates the cached permissions of all senders used for completion
+     *
+     * @return fluent interface
+     */
+    public BaseCommand invalidatePermissions()
+    {
+        this.permissionCache.invalidateAll();
+        return this;
+    }
+
+    /**
+     * Sets the time the permissions of a sender stay cached for completion
+     *
+     * @param ttl the time in milliseconds
+     * @return fluent interface
+     */
+    public BaseCommand setPermissionCacheTtl(long ttl)
+    {
+        this.permissionCache.setTtl(ttl);
+        return this;
+    }
+
     public BaseCommand setDefaultCommand(String name)
     {
         SubCommand command = this.getCommand(name);
@@ -157,9 +411,9 @@ public class BaseCommand implements CommandExecutor
             throw new IllegalArgumentException("The command container must not be null!");
         }
         
+        List<SubCommand> registeredCommands = new ArrayList<SubCommand>();
         try
         {
-            Set<String> registeredCommands = new HashSet<String>();
             Command annotation;
             RequiresPermission permissionAnnotation;
             String name;
@@ -197,13 +451,7 @@ public class BaseCommand implements CommandExecutor
                     }
                     try
                     {
-                        this.commands.put(name, new SubCommand(commandContainer, method, name, annotation.aliases(), permission, addPermissionParent, annotation.usage()));
-                        registeredCommands.add(name);
-
-                        for (String alias : annotation.aliases())
-                        {
-                            this.aliases.put(alias, name);
-                        }
+                        registeredCommands.add(new SubCommand(commandContainer, method, name, annotation.aliases(), permission, addPermissionParent, annotation.usage(), ArgumentSchema.compile(annotation.args()), annotation.async(), annotation.timeout(), RateLimiter.of(method.getAnnotation(Cooldown.class))));
                     }
                     catch (IllegalArgumentException e)
                     {
@@ -211,25 +459,26 @@ public class BaseCommand implements CommandExecutor
                     }
                 }
             }
-
-            this.objectCommandMap.put(commandContainer, registeredCommands);
         }
         catch (Throwable t)
         {}
-        
+
+        synchronized (this.registryLock)
+        {
+            this.registry = this.registry.withCommands(commandContainer, registeredCommands);
+        }
+        this.permissionCache.invalidateAll();
+
         return this;
     }
 
     public BaseCommand unregisterCommands(Object commandContainer)
     {
-        Set<String> commandsToRemove = this.objectCommandMap.get(commandContainer);
-        if (commandsToRemove != null)
+        synchronized (this.registryLock)
         {
-            for (String command : commandsToRemove)
-            {
-                this.unregisterCommand(command);
-            }
+            this.registry = this.registry.withoutContainer(commandContainer);
         }
+        this.permissionCache.invalidateAll();
 
         return this;
     }
@@ -241,14 +490,11 @@ public class BaseCommand implements CommandExecutor
             throw new IllegalArgumentException("the name must not be null!");
         }
 
-        this.commands.remove(name);
-        for (Map.Entry<String, String> entry : this.aliases.entrySet())
+        synchronized (this.registryLock)
         {
-            if (name.equals(entry.getValue()))
-            {
-                this.aliases.remove(entry.getKey());
-            }
+            this.registry = this.registry.withoutCommands(Collections.singleton(name));
         }
+        this.permissionCache.invalidateAll();
         return this;
     }
 
@@ -264,7 +510,7 @@ public class BaseCommand implements CommandExecutor
 
     public Collection<SubCommand> getAllSubCommands()
     {
-        return this.commands.values();
+        return this.registry.getCommands();
     }
 
     public SubCommand getCommandByName(String name)
@@ -273,32 +519,46 @@ public class BaseCommand implements CommandExecutor
         {
             return null;
         }
-        return this.commands.get(name.toLowerCase());
+        return this.registry.getByName(name.toLowerCase());
     }
 
+    /**
+     * Resolves a command by its name, one of its aliases or an unique prefix of those
+     *
+     * @param label the label
+     * @return the command or null
+     */
     public SubCommand getCommand(String label)
     {
         if (label == null)
         {
             return null;
         }
-        label = label.toLowerCase();
-        String name = this.aliases.get(label);
-        if (name != null)
-        {
-            return this.getCommandByName(name);
-        }
-        else
+        return this.registry.getIndex().resolve(label);
+    }
+
+    /**
+     * Returns the names and aliases starting with the given prefix, names ranked first
+     *
+     * @param prefix the prefix
+     * @return the matching names and aliases
+     */
+    public List<String> getCommandCandidates(String prefix)
+    {
+        if (prefix == null)
         {
-            return this.getCommandByName(label);
+            prefix = "";
         }
+        return this.registry.getIndex().complete(prefix);
     }
 
     public BaseCommand clearCommands()
     {
-        this.commands.clear();
-        this.aliases.clear();
-        this.objectCommandMap.clear();
+        synchronized (this.registryLock)
+        {
+            this.registry = CommandRegistry.EMPTY;
+        }
+        this.permissionCache.invalidateAll();
 
         return this;
     }
@@ -316,58 +576,183 @@ public class BaseCommand implements CommandExecutor
         }
     }
 
-    @Command(name = "help")
-    public void helpCommand(CommandSender sender, CommandArgs args)
+    private HelpIndex getHelpIndex(CommandSender sender, String baseLabel)
     {
-        if (args.size() > 0)
+        Translation translation = this.getTranslation(sender);
+        CommandRegistry currentRegistry = this.registry;
+        HelpIndex help;
+        synchronized (this.helpIndices)
         {
-            String commandName = args.getString(0);
-            SubCommand command = getCommand(commandName);
-            if (command != null)
-            {
-                sender.sendMessage("/" + args.getBaseLabel() + " " + args.getString(0) + " " + command.getUsage());
-                sender.sendMessage("    " + _(command.getName() + "_description"));
-            }
-            else
+            help = this.helpIndices.get(translation);
+        }
+        if (help == null || !help.isValidFor(currentRegistry, baseLabel, translation.getRevision()))
+        {
+            help = new HelpIndex(currentRegistry, translation, baseLabel);
+            synchronized (this.helpIndices)
             {
-                sender.sendMessage(_("help_cmdnotfound", args.getString(0)));
+                this.helpIndices.put(translation, help);
             }
         }
-        else
+        return help;
+    }
+
+    /**
+     * Sets the number of commands listed per help page
+     *
+     * @param pageSize the page size
+     * @return fluent interface
+     */
+    public BaseCommand setHelpPageSize(int pageSize)
+    {
+        if (pageSize < 1)
         {
-            sender.sendMessage(_("help_listofcommands"));
-            sender.sendMessage(" ");
+            throw new IllegalArgumentException("The page size must be at least 1!");
+        }
+        this.helpPageSize = pageSize;
+        return this;
+    }
 
-            List<SubCommand> subCommands = new ArrayList<SubCommand>(args.getBaseCommand().getAllSubCommands());
-            Collections.sort(subCommands, SubCommand.COMPARATOR);
+    private static int parsePage(String string)
+    {
+        final int length = string.length();
+        if (length == 0 || length > 9)
+        {
+            return -1;
+        }
+        int page = 0;
+        char c;
+        for (int i = 0; i < length; ++i)
+        {
+            c = string.charAt(i);
+            if (c < '0' || c > '9')
+            {
+                return -1;
+            }
+            page = page * 10 + (c - '0');
+        }
+        return page;
+    }
 
-            for (SubCommand command : subCommands)
+    @Command(name = "help", usage = "[command|page]")
+    public void helpCommand(CommandSender sender, CommandArgs args)
+    {
+        HelpIndex help = this.getHelpIndex(sender, args.getBaseLabel());
+        int page = 1;
+        if (args.size() > 0)
+        {
+            String commandName = args.getString(0);
+            page = parsePage(commandName);
+            if (page < 0)
             {
-                if (command.getPermission() != null && !sender.hasPermission(command.getPermission()))
+                SubCommand command = getCommand(commandName);
+                int index = (command != null ? help.indexOf(command) : -1);
+                if (index >= 0)
+                {
+                    sender.sendMessage(new String[] {help.getUsageLine(index), help.getDescriptionLine(index)});
+                }
+                else
                 {
-                    continue;
+                    sender.sendMessage(_(sender, HELP_CMDNOTFOUND, commandName));
                 }
-                sender.sendMessage("/" + args.getBaseLabel() + " " + command.getName() + " " + command.getUsage());
-                sender.sendMessage("    " + _(command.getName() + "_description"));
-                sender.sendMessage(" ");
+                return;
             }
         }
+
+        // permissions are checked live, so the listing reflects changed permissions immediately
+        int[] visible = new int[help.size()];
+        int visibleCount = 0;
+        Permission permission;
+        for (int i = 0; i < help.size(); ++i)
+        {
+            permission = help.getCommand(i).getPermission();
+            if (permission == null || sender.hasPermission(permission))
+            {
+                visible[visibleCount++] = i;
+            }
+        }
+
+        final int pageSize = this.helpPageSize;
+        final int pages = Math.max(1, (visibleCount + pageSize - 1) / pageSize);
+        page = Math.min(Math.max(page, 1), pages);
+        final int first = (page - 1) * pageSize;
+        final int last = Math.min(first + pageSize, visibleCount);
+
+        String[] lines = new String[2 + (last - first) * 2 + (pages > 1 ? 1 : 0)];
+        int line = 0;
+        lines[line++] = _(sender, HELP_LISTOFCOMMANDS);
+        lines[line++] = " ";
+        for (int i = first; i < last; ++i)
+        {
+            lines[line++] = help.getUsageLine(visible[i]);
+            lines[line++] = help.getDescriptionLine(visible[i]);
+        }
+        if (pages > 1)
+        {
+            lines[line] = _(sender, HELP_PAGE, page, pages);
+        }
+        sender.sendMessage(lines);
     }
 
     @Command(name = "version")
     private void versionCommand(CommandSender sender, CommandArgs args)
     {
-        sender.sendMessage(_("version_pluginversion", this.plugin.getDescription().getVersion()));
+        sender.sendMessage(_(sender, VERSION_PLUGINVERSION, this.plugin.getDescription().getVersion()));
         sender.sendMessage(" ");
     }
 
+    @Command(name = "stats", usage = "[command] [-reset]")
+    @RequiresPermission
+    private void statsCommand(CommandSender sender, CommandArgs args)
+    {
+        List<SubCommand> subCommands;
+        if (args.size() > 0)
+        {
+            SubCommand command = this.getCommand(args.getString(0));
+            if (command == null)
+            {
+                sender.sendMessage(_(sender, HELP_CMDNOTFOUND, args.getString(0)));
+                return;
+            }
+            subCommands = Collections.singletonList(command);
+        }
+        else
+        {
+            subCommands = new ArrayList<SubCommand>(this.registry.getCommands());
+            Collections.sort(subCommands, SubCommand.COMPARATOR);
+            CommandStats.sortByTotalTime(subCommands);
+        }
+
+        if (args.hasFlag("reset"))
+        {
+            for (SubCommand command : subCommands)
+            {
+                command.getStats().reset();
+            }
+            sender.sendMessage(_(sender, STATS_RESET));
+            return;
+        }
+
+        sender.sendMessage(_(sender, STATS_HEADER));
+        CommandStats stats;
+        for (SubCommand command : subCommands)
+        {
+            stats = command.getStats();
+            if (stats.getInvocations() == 0 && stats.getPermissionDenials() == 0 && args.size() == 0)
+            {
+                continue;
+            }
+            sender.sendMessage(_(sender, STATS_COMMAND, command.getName(), stats.getInvocations(), stats.getMeanNanos() / 1000000.0, stats.getPercentileNanos(99) / 1000000.0, stats.getMaxNanos() / 1000000.0, stats.getPermissionDenials(), stats.getCommandErrors(), stats.getInternalErrors()));
+        }
+    }
+
     @Command(name = "reload")
     @RequiresPermission
     private void reloadCommand(CommandSender sender, CommandArgs args)
     {
+        this.shutdownAsync();
         this.pm.disablePlugin(this.plugin);
         this.pm.enablePlugin(this.plugin);
-        sender.sendMessage(_("reload_completed"));
+        sender.sendMessage(_(sender, RELOAD_COMPLETED));
     }
 
     @Command(name = "language", usage = "[language]")
@@ -383,16 +768,16 @@ public class BaseCommand implements CommandExecutor
                 plugin.setTranslation(tranlation);
                 plugin.getConfig().set("language", language);
                 plugin.saveConfig();
-                sender.sendMessage(_("language_changed", _("language_" + tranlation.getLanguage())));
+                sender.sendMessage(_(sender, LANGUAGE_CHANGED, _(sender, "language_" + tranlation.getLanguage())));
             }
             else
             {
-                sender.sendMessage(_("language_failed", language));
+                sender.sendMessage(_(sender, LANGUAGE_FAILED, language));
             }
         }
         else
         {
-            sender.sendMessage(_("language_current", _("language_" + this.plugin.getTranslation().getLanguage())));
+            sender.sendMessage(_(sender, LANGUAGE_CURRENT, _(sender, "language_" + this.plugin.getTranslation().getLanguage())));
         }
     }
 
@@ -16,4 +16,18 @@ public @interface Command
     public String name() default "";
     public String[] aliases() default {};
     public String usage() default "";
+    /**
+     * The argument schema, for example "&lt;player:string&gt; &lt;amount:int&gt; [radius:double]".
+     * Supported types are string, player, int, long, double and boolean.
+     */
+    public String args() default "";
+    /**
+     * Whether the command runs off the main thread.
+     * Messages to the sender are sent on the main thread.
+     */
+    public boolean async() default false;
+    /**
+     * The timeout of an async command in milliseconds, 0 uses the default of the base command
+     */
+    public long timeout() default 0;
 }
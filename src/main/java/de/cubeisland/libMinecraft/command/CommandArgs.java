@@ -1,6 +1,6 @@
 package de.cubeisland.libMinecraft.command;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
@@ -9,18 +9,34 @@ import java.util.Set;
 /**
  * This class holds all the arguments that got passed to the command
  *
+ * The arguments are tokenized in a single pass into a shared character buffer,
+ * parameters and flags are only stored as ranges of that buffer.
+ * The Strings get created on first access.
+ *
  * @author Phillip Schichtel
  */
 public class CommandArgs
 {
+    private static final char[] EMPTY_BUFFER = new char[0];
+    private static final int[] EMPTY_RANGES = new int[0];
+    static final String[] TRUE_WORDS = {"true", "yes", "on", "1", "enable"};
+    static final String[] FALSE_WORDS = {"false", "no", "off", "0", "disable"};
+
     private final BaseCommand baseCommand;
     private final String baseLabel;
     private final SubCommand subCommand;
     private final String label;
-    private final Set<String> flags;
-    private final List<String> params;
+    private final char[] buffer;
+    private final int[] paramRanges;
+    private final int[] flagRanges;
+    private final int flagCount;
+    private String[] params;
+    private Set<String> flags;
     private final boolean empty;
     private final int size;
+    private ArgumentSchema schema;
+    private long[] longValues;
+    private double[] doubleValues;
 
     /**
      * Initializes the CommandArgs object with an array of arguments
@@ -33,113 +49,202 @@ public class CommandArgs
      */
     public CommandArgs(BaseCommand baseCommand, String baseLabel, SubCommand subCommand, String[] args)
     {
+        if (args.length == 0)
+        {
+            throw new IllegalArgumentException("There need to be at least 1 argument!");
+        }
         this.baseCommand = baseCommand;
         this.baseLabel = baseLabel;
         this.subCommand = subCommand;
-        this.flags = new HashSet<String>();
-        this.params = new ArrayList<String>();
+        this.label = args[0];
 
-        if (args.length > 0)
+        if (args.length == 1)
         {
-            this.label = args[0];
-
-            char firstChar;
-            char quoteChar = '\0';
-            int length;
-            StringBuilder quotedArgBuilder = null;
-            
-            for (int i = 1; i < args.length; ++i)
+            this.buffer = EMPTY_BUFFER;
+            this.paramRanges = EMPTY_RANGES;
+            this.flagRanges = EMPTY_RANGES;
+            this.flagCount = 0;
+            this.size = 0;
+            this.empty = true;
+            return;
+        }
+
+        // the buffer holds the arguments joined by spaces, so quoted
+        // parameters spanning multiple arguments are continuous ranges
+        int bufferLength = args.length - 2;
+        for (int i = 1; i < args.length; ++i)
+        {
+            bufferLength += args[i].length();
+        }
+        final char[] buf = new char[bufferLength];
+        // every argument yields at most 2 parameters (closing quote + trailing text)
+        final int[] pRanges = new int[(args.length - 1) << 2];
+        int[] fRanges = EMPTY_RANGES;
+        int pCount = 0;
+        int fCount = 0;
+
+        char firstChar;
+        char quoteChar = '\0';
+        int quoteStart = -1;
+        int quoteOffset;
+        int length;
+        int start;
+        int end = 0;
+        boolean last;
+
+        for (int i = 1; i < args.length; ++i)
+        {
+            if (i > 1)
+            {
+                buf[end++] = ' ';
+            }
+            start = end;
+            length = args[i].length();
+            args[i].getChars(0, length, buf, start);
+            end += length;
+            last = (i + 1 >= args.length);
+
+            if (length < 1)
             {
-                firstChar = args[i].charAt(0);
-                length = args[i].length();
+                // inside of quotes the space is already part of the buffer
+                continue;
+            }
 
-                if (length < 1)
+            if (quoteStart < 0)
+            {
+                firstChar = buf[start];
+                if (firstChar == '"' || firstChar == '\'')
                 {
-                    if (quotedArgBuilder != null)
+                    if (last)
                     {
-                        quotedArgBuilder.append(' ');
+                        pRanges[pCount++] = start + 1;
+                        pRanges[pCount++] = end;
+                    }
+                    else
+                    {
+                        quoteChar = firstChar;
+                        quoteStart = start + 1;
                     }
-                    continue;
                 }
+                else if (firstChar == '-' && isFlag(buf, start + 1, end))
+                {
+                    if (fRanges.length == 0)
+                    {
+                        fRanges = new int[(args.length - i) << 1];
+                    }
+                    fRanges[fCount++] = start + 1;
+                    fRanges[fCount++] = end;
+                }
+                else
+                {
+                    pRanges[pCount++] = start;
+                    pRanges[pCount++] = end;
+                }
+            }
+            else
+            {
+                quoteOffset = indexOf(buf, quoteChar, start, end);
+                if (quoteOffset >= 0)
+                {
+                    pRanges[pCount++] = quoteStart;
+                    // without text before the quote the separating space is not part of the parameter
+                    pRanges[pCount++] = (quoteOffset > start ? quoteOffset : start - 1);
+                    quoteStart = -1;
 
-                switch (firstChar)
+                    if (quoteOffset + 1 < end)
+                    {
+                        pRanges[pCount++] = quoteOffset + 1;
+                        pRanges[pCount++] = end;
+                    }
+                }
+                else if (last)
                 {
-                    case '\'':
-                    case '"':
-                        if (quotedArgBuilder == null)
-                        {
-                            if (i + 1 >= args.length)
-                            {
-                                this.params.add(args[i].substring(1));
-                            }
-                            else
-                            {
-                                quoteChar = firstChar;
-                                quotedArgBuilder = new StringBuilder(args[i].substring(1));
-                            }
-                            break;
-                        }
-                    case '-':
-                        if (quotedArgBuilder == null && args[i].matches("^\\-[A-Za-z]+$"))
-                        {
-                            this.flags.add(args[i].substring(1));
-                            break;
-                        }
-                    default:
-                        if (quotedArgBuilder == null)
-                        {
-                            this.params.add(args[i]);
-                        }
-                        else
-                        {
-                            if (quotedArgBuilder == null)
-                            {
-                                this.params.add(args[i]);
-                            }
-                            else
-                            {
-                                int quoteOffset = args[i].indexOf(quoteChar);
-                                if (quoteOffset >= 0)
-                                {
-                                    String before = args[i].substring(0, quoteOffset);
-                                    String after = "";
-                                    if (quoteOffset + 1 < length)
-                                    {
-                                        after = args[i].substring(quoteOffset + 1);
-                                    }
-                                    
-                                    if (before.length() > 0)
-                                    {
-                                        quotedArgBuilder.append(' ').append(before);
-                                    }
-                                    this.params.add(quotedArgBuilder.toString());
-                                    quotedArgBuilder = null;
-
-                                    if (after.length() > 0)
-                                    {
-                                        this.params.add(after);
-                                    }
-                                }
-                                else
-                                {
-                                    quotedArgBuilder.append(' ').append(args[i]);
-                                    if (i + 1 >= args.length)
-                                    {
-                                        this.params.add(quotedArgBuilder.toString());
-                                        quotedArgBuilder = null;
-                                    }
-                                }
-                            }
-                        }
+                    pRanges[pCount++] = quoteStart;
+                    pRanges[pCount++] = end;
+                    quoteStart = -1;
                 }
             }
         }
-        else
+        if (quoteStart >= 0)
         {
-            throw new IllegalArgumentException("There need to be at least 1 argument!");
+            // unterminated quote followed by empty arguments
+            pRanges[pCount++] = quoteStart;
+            pRanges[pCount++] = end;
+        }
+
+        this.buffer = buf;
+        this.paramRanges = pRanges;
+        this.flagRanges = fRanges;
+        this.flagCount = fCount >> 1;
+        this.size = pCount >> 1;
+        this.empty = (this.size == 0);
+    }
+
+    private static boolean isFlag(char[] buffer, int start, int end)
+    {
+        if (start >= end)
+        {
+            return false;
+        }
+        char c;
+        for (int i = start; i < end; ++i)
+        {
+            c = buffer[i];
+            if ((c < 'A' || c > 'Z') && (c < 'a' || c > 'z'))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int indexOf(char[] buffer, char c, int start, int end)
+    {
+        for (int i = start; i < end; ++i)
+        {
+            if (buffer[i] == c)
+            {
+                return i;
+            }
         }
-        this.empty = this.params.isEmpty();
-        this.size = this.params.size();
+        return -1;
+    }
+
+    /**
+     * Stores the primitive values parsed by the given schema
+     *
+     * @param schema the schema
+     * @param longValues the int, long and boolean values
+     * @param doubleValues the double values
+     */
+    void setParsedValues(ArgumentSchema schema, long[] longValues, double[] doubleValues)
+    {
+        this.schema = schema;
+        this.longValues = longValues;
+        this.doubleValues = doubleValues;
+    }
+
+    private ArgumentSchema.Type getParsedType(int index)
+    {
+        if (this.schema != null && index >= 0 && index < this.size)
+        {
+            ArgumentSchema.Argument argument = this.schema.getArgument(index);
+            if (argument != null)
+            {
+                return argument.getType();
+            }
+        }
+        return ArgumentSchema.Type.STRING;
+    }
+
+    /**
+     * Returns the argument schema these arguments were parsed with
+     *
+     * @return the schema or null
+     */
+    public ArgumentSchema getSchema()
+    {
+        return this.schema;
     }
 
     /**
@@ -210,7 +315,26 @@ public class CommandArgs
      */
     public boolean hasFlag(String flag)
     {
-        return this.flags.contains(flag);
+        final int length = flag.length();
+        int start;
+        for (int i = 0; i < this.flagCount; ++i)
+        {
+            start = this.flagRanges[i << 1];
+            if (this.flagRanges[(i << 1) + 1] - start != length)
+            {
+                continue;
+            }
+            int j = 0;
+            while (j < length && this.buffer[start + j] == flag.charAt(j))
+            {
+                ++j;
+            }
+            if (j == length)
+            {
+                return true;
+            }
+        }
+        return false;
     }
 
     /**
@@ -240,7 +364,21 @@ public class CommandArgs
      */
     public String getString(int i)
     {
-        return this.params.get(i);
+        if (i < 0 || i >= this.size)
+        {
+            throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + this.size);
+        }
+        if (this.params == null)
+        {
+            this.params = new String[this.size];
+        }
+        String param = this.params[i];
+        if (param == null)
+        {
+            final int start = this.paramRanges[i << 1];
+            param = this.params[i] = new String(this.buffer, start, this.paramRanges[(i << 1) + 1] - start);
+        }
+        return param;
     }
 
     /**
@@ -254,19 +392,24 @@ public class CommandArgs
     {
         if (i >= 0 && this.size > i)
         {
-            return this.params.get(i);
+            return this.getString(i);
         }
         return def;
     }
 
     /**
      * Returns the requested value as an int
+     * If the command declares an argument schema, the value was already parsed.
      *
      * @param index the index
      * @return the value as int
      */
     public int getInt(int index) throws NumberFormatException
     {
+        if (this.getParsedType(index) == ArgumentSchema.Type.INT)
+        {
+            return (int)this.longValues[index];
+        }
         return Integer.parseInt(this.getString(index));
     }
 
@@ -278,7 +421,16 @@ public class CommandArgs
      */
     public double getDouble(int index) throws NumberFormatException
     {
-        return Double.parseDouble(this.getString(index));
+        switch (this.getParsedType(index))
+        {
+            case DOUBLE:
+                return this.doubleValues[index];
+            case INT:
+            case LONG:
+                return this.longValues[index];
+            default:
+                return Double.parseDouble(this.getString(index));
+        }
     }
 
     /**
@@ -289,7 +441,14 @@ public class CommandArgs
      */
     public long getLong(int index) throws NumberFormatException
     {
-        return Long.parseLong(this.getString(index));
+        switch (this.getParsedType(index))
+        {
+            case INT:
+            case LONG:
+                return this.longValues[index];
+            default:
+                return Long.parseLong(this.getString(index));
+        }
     }
 
     /**
@@ -308,7 +467,11 @@ public class CommandArgs
      */
     public boolean getBoolean(int index)
     {
-        return this.getBoolean(index, "true", "yes", "on", "1", "enable");
+        if (this.getParsedType(index) == ArgumentSchema.Type.BOOLEAN)
+        {
+            return this.longValues[index] != 0;
+        }
+        return this.getBoolean(index, TRUE_WORDS);
     }
 
     /**
@@ -333,11 +496,30 @@ public class CommandArgs
 
     public Set<String> getFlags()
     {
-        return Collections.unmodifiableSet(this.flags);
+        if (this.flags == null)
+        {
+            Set<String> flagSet = new HashSet<String>(this.flagCount);
+            int start;
+            for (int i = 0; i < this.flagCount; ++i)
+            {
+                start = this.flagRanges[i << 1];
+                flagSet.add(new String(this.buffer, start, this.flagRanges[(i << 1) + 1] - start));
+            }
+            this.flags = Collections.unmodifiableSet(flagSet);
+        }
+        return this.flags;
     }
 
     public List<String> getParams()
     {
-        return Collections.unmodifiableList(this.params);
+        for (int i = 0; i < this.size; ++i)
+        {
+            this.getString(i);
+        }
+        if (this.params == null)
+        {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableList(Arrays.asList(this.params));
     }
 }
@@ -0,0 +1,25 @@
+package de.cubeisland.libMinecraft.command;
+
+import org.bukkit.command.CommandSender;
+
+/**
+ * This interface calls the method of a sub command.
+ * The invokers are bound once when the sub command gets created,
+ * you usually don't implement this yourself.
+ *
+ * @see SubCommand#execute(CommandSender, CommandArgs)
+ */
+public interface CommandInvoker
+{
+    /**
+     * Calls the command method.
+     * Exceptions thrown by the method are passed through unwrapped.
+     *
+     * @param commandContainer the object declaring the method
+     * @param sender the command sender
+     * @param args the arguments
+     * @return false if the method returned false, otherwise true
+     * @throws Throwable anything the method throws
+     */
+    public boolean invoke(Object commandContainer, CommandSender sender, CommandArgs args) throws Throwable;
+}
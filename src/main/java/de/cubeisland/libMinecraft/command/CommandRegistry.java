@@ -0,0 +1,109 @@
+package de.cubeisland.libMinecraft.command;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * This class is an immutable snapshot of the registered sub commands.
+ * Every change creates a new snapshot, so readers never need to lock.
+ */
+final class CommandRegistry
+{
+    public static final CommandRegistry EMPTY = new CommandRegistry(new HashMap<String, SubCommand>(), new HashMap<Object, Set<String>>());
+
+    private final Map<String, SubCommand> commands;
+    private final Map<Object, Set<String>> containers;
+    private final CommandTrie index;
+
+    private CommandRegistry(Map<String, SubCommand> commands, Map<Object, Set<String>> containers)
+    {
+        this.commands = Collections.unmodifiableMap(commands);
+        this.containers = containers;
+        this.index = CommandTrie.build(this.commands.values());
+    }
+
+    /**
+     * Returns a snapshot with the given commands of a container added
+     *
+     * @param container the command container
+     * @param commands the commands
+     * @return the new snapshot
+     */
+    public CommandRegistry withCommands(Object container, Collection<SubCommand> commands)
+    {
+        Map<String, SubCommand> newCommands = new HashMap<String, SubCommand>(this.commands);
+        Map<Object, Set<String>> newContainers = new HashMap<Object, Set<String>>(this.containers);
+        Set<String> names = newContainers.get(container);
+        names = (names == null ? new HashSet<String>() : new HashSet<String>(names));
+        for (SubCommand command : commands)
+        {
+            newCommands.put(command.getName(), command);
+            names.add(command.getName());
+        }
+        newContainers.put(container, Collections.unmodifiableSet(names));
+        return new CommandRegistry(newCommands, newContainers);
+    }
+
+    /**
+     * Returns a snapshot without the given commands
+     *
+     * @param names the names of the commands
+     * @return the new snapshot or this snapshot if nothing changed
+     */
+    public CommandRegistry withoutCommands(Collection<String> names)
+    {
+        Map<String, SubCommand> newCommands = new HashMap<String, SubCommand>(this.commands);
+        boolean changed = false;
+        for (String name : names)
+        {
+            changed |= (newCommands.remove(name) != null);
+        }
+        if (!changed)
+        {
+            return this;
+        }
+        return new CommandRegistry(newCommands, this.containers);
+    }
+
+    /**
+     * Returns a snapshot without the commands of the given container
+     *
+     * @param container the command container
+     * @return the new snapshot or this snapshot if nothing changed
+     */
+    public CommandRegistry withoutContainer(Object container)
+    {
+        Set<String> names = this.containers.get(container);
+        if (names == null)
+        {
+            return this;
+        }
+        Map<String, SubCommand> newCommands = new HashMap<String, SubCommand>(this.commands);
+        for (String name : names)
+        {
+            newCommands.remove(name);
+        }
+        Map<Object, Set<String>> newContainers = new HashMap<Object, Set<String>>(this.containers);
+        newContainers.remove(container);
+        return new CommandRegistry(newCommands, newContainers);
+    }
+
+    public SubCommand getByName(String name)
+    {
+        return this.commands.get(name);
+    }
+
+    public Collection<SubCommand> getCommands()
+    {
+        return this.commands.values();
+    }
+
+    public CommandTrie getIndex()
+    {
+        return this.index;
+    }
+}
@@ -0,0 +1,220 @@
+package de.cubeisland.libMinecraft.command;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * This class records execution metrics of a sub command.
+ * Latencies are recorded in a histogram with power of two buckets (in nanoseconds),
+ * so recording is a few atomic increments and never allocates.
+ */
+public final class CommandStats
+{
+    private static final int BUCKETS = 48;
+
+    private final AtomicLong invocations;
+    private final AtomicLong permissionDenials;
+    private final AtomicLong commandErrors;
+    private final AtomicLong internalErrors;
+    private final AtomicLong totalNanos;
+    private final AtomicLong maxNanos;
+    private final AtomicLongArray histogram;
+
+    CommandStats()
+    {
+        this.invocations = new AtomicLong();
+        this.permissionDenials = new AtomicLong();
+        this.commandErrors = new AtomicLong();
+        this.internalErrors = new AtomicLong();
+        this.totalNanos = new AtomicLong();
+        this.maxNanos = new AtomicLong();
+        this.histogram = new AtomicLongArray(BUCKETS);
+    }
+
+    void recordInvocation(long nanos)
+    {
+        if (nanos < 0)
+        {
+            nanos = 0;
+        }
+        this.invocations.incrementAndGet();
+        this.totalNanos.addAndGet(nanos);
+        this.histogram.incrementAndGet(bucketOf(nanos));
+        long max;
+        while ((max = this.maxNanos.get()) < nanos && !this.maxNanos.compareAndSet(max, nanos))
+        {}
+    }
+
+    void recordPermissionDenial()
+    {
+        this.permissionDenials.incrementAndGet();
+    }
+
+    void recordCommandError()
+    {
+        this.commandErrors.incrementAndGet();
+    }
+
+    void recordInternalError()
+    {
+        this.internalErrors.incrementAndGet();
+    }
+
+    private static int bucketOf(long nanos)
+    {
+        int bucket = 63 - Long.numberOfLeadingZeros(nanos | 1);
+        return (bucket < BUCKETS ? bucket : BUCKETS - 1);
+    }
+
+    /**
+     * Returns the number of executions
+     *
+     * @return the number of executions
+     */
+    public long getInvocations()
+    {
+        return this.invocations.get();
+    }
+
+    /**
+     * Returns how often a sender was denied to use the command
+     *
+     * @return the number of permission denials
+     */
+    public long getPermissionDenials()
+    {
+        return this.permissionDenials.get();
+    }
+
+    /**
+     * Returns how often the command threw a CommandException
+     *
+     * @return the number of command exceptions
+     */
+    public long getCommandErrors()
+    {
+        return this.commandErrors.get();
+    }
+
+    /**
+     * Returns how often the command failed with any other exception
+     *
+     * @return the number of internal errors
+     */
+    public long getInternalErrors()
+    {
+        return this.internalErrors.get();
+    }
+
+    /**
+     * Returns the sum of all execution times
+     *
+     * @return the time in nanoseconds
+     */
+    public long getTotalNanos()
+    {
+        return this.totalNanos.get();
+    }
+
+    /**
+     * Returns the longest execution time
+     *
+     * @return the time in nanoseconds
+     */
+    public long getMaxNanos()
+    {
+        return this.maxNanos.get();
+    }
+
+    /**
+     * Returns the average execution time
+     *
+     * @return the time in nanoseconds
+     */
+    public double getMeanNanos()
+    {
+        long count = this.invocations.get();
+        if (count == 0)
+        {
+            return 0;
+        }
+        return (double)this.totalNanos.get() / count;
+    }
+
+    /**
+     * Returns the upper bound of the histogram bucket containing the given percentile
+     *
+     * @param percentile the percentile between 0 and 100
+     * @return the time in nanoseconds
+     */
+    public long getPercentileNanos(double percentile)
+    {
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; ++i)
+        {
+            counts[i] = this.histogram.get(i);
+            total += counts[i];
+        }
+        if (total == 0)
+        {
+            return 0;
+        }
+        long threshold = (long)Math.ceil(total * Math.min(Math.max(percentile, 0), 100) / 100.0);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; ++i)
+        {
+            seen += counts[i];
+            if (seen >= threshold && counts[i] > 0)
+            {
+                return Math.min((2L << i) - 1, this.maxNanos.get());
+            }
+        }
+        return this.maxNanos.get();
+    }
+
+    /**
+     * Resets all metrics
+     */
+    public void reset()
+    {
+        this.invocations.set(0);
+        this.permissionDenials.set(0);
+        this.commandErrors.set(0);
+        this.internalErrors.set(0);
+        this.totalNanos.set(0);
+        this.maxNanos.set(0);
+        for (int i = 0; i < BUCKETS; ++i)
+        {
+            this.histogram.set(i, 0);
+        }
+    }
+
+    /**
+     * Sorts the given commands by their total execution time, the slowest first.
+     * The totals are snapshotted before sorting, so concurrent executions don't affect the order.
+     *
+     * @param commands the commands to sort
+     */
+    public static void sortByTotalTime(List<SubCommand> commands)
+    {
+        final Map<SubCommand, Long> totals = new IdentityHashMap<SubCommand, Long>(commands.size());
+        for (SubCommand command : commands)
+        {
+            totals.put(command, command.getStats().getTotalNanos());
+        }
+        Collections.sort(commands, new Comparator<SubCommand>() {
+            public int compare(SubCommand o1, SubCommand o2)
+            {
+                final long total1 = totals.get(o1);
+                final long total2 = totals.get(o2);
+                return (total1 < total2 ? 1 : (total1 == total2 ? 0 : -1));
+            }
+        });
+    }
+}
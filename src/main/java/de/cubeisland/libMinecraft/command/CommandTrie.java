@@ -0,0 +1,228 @@
+package de.cubeisland.libMinecraft.command;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * This class indexes the names and aliases of sub commands in a lower case trie.
+ * It resolves names, aliases and unique prefixes in a single walk.
+ * A trie is immutable once it got built.
+ */
+final class CommandTrie
+{
+    private static final char[] NO_KEYS = new char[0];
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    private final Node root;
+
+    private CommandTrie(Node root)
+    {
+        this.root = root;
+    }
+
+    /**
+     * Builds a trie of the given commands and their aliases.
+     * Aliases take precedence over names of other commands.
+     *
+     * @param commands the commands
+     * @return the trie
+     */
+    public static CommandTrie build(Collection<SubCommand> commands)
+    {
+        Node root = new Node();
+        for (SubCommand command : commands)
+        {
+            root.insert(command.getName(), command, false);
+        }
+        for (SubCommand command : commands)
+        {
+            for (String alias : command.getAliases())
+            {
+                root.insert(alias, command, true);
+            }
+        }
+        root.seal();
+        return new CommandTrie(root);
+    }
+
+    private Node find(CharSequence label)
+    {
+        Node node = this.root;
+        final int length = label.length();
+        for (int i = 0; i < length && node != null; ++i)
+        {
+            node = node.getChild(Character.toLowerCase(label.charAt(i)));
+        }
+        return node;
+    }
+
+    /**
+     * Returns the command with exactly the given name or alias
+     *
+     * @param label the name or alias
+     * @return the command or null
+     */
+    public SubCommand get(CharSequence label)
+    {
+        Node node = this.find(label);
+        if (node == null)
+        {
+            return null;
+        }
+        return node.command;
+    }
+
+    /**
+     * Resolves the given label to a command by its name, an alias or an unique prefix
+     *
+     * @param label the label
+     * @return the command or null if none or more than one command matches
+     */
+    public SubCommand resolve(CharSequence label)
+    {
+        if (label.length() == 0)
+        {
+            return null;
+        }
+        Node node = this.find(label);
+        if (node == null)
+        {
+            return null;
+        }
+        if (node.command != null)
+        {
+            return node.command;
+        }
+        return node.unique;
+    }
+
+    /**
+     * Returns all names and aliases starting with the given prefix.
+     * Names are ranked before aliases, both are sorted alphabetically.
+     *
+     * @param prefix the prefix
+     * @return the candidates
+     */
+    public List<String> complete(CharSequence prefix)
+    {
+        List<String> names = new ArrayList<String>();
+        Node node = this.find(prefix);
+        if (node != null)
+        {
+            List<String> aliases = new ArrayList<String>();
+            node.collect(names, aliases);
+            names.addAll(aliases);
+        }
+        return names;
+    }
+
+    private static final class Node
+    {
+        private char[] keys = NO_KEYS;
+        private Node[] children = NO_CHILDREN;
+        private SubCommand command = null;
+        private String word = null;
+        private boolean alias = false;
+        private SubCommand unique = null;
+
+        private Node getChild(char c)
+        {
+            final char[] k = this.keys;
+            for (int i = 0; i < k.length; ++i)
+            {
+                if (k[i] == c)
+                {
+                    return this.children[i];
+                }
+            }
+            return null;
+        }
+
+        private void insert(String word, SubCommand command, boolean alias)
+        {
+            word = word.toLowerCase();
+            Node node = this;
+            Node child;
+            char c;
+            for (int i = 0; i < word.length(); ++i)
+            {
+                c = word.charAt(i);
+                child = node.getChild(c);
+                if (child == null)
+                {
+                    child = node.addChild(c);
+                }
+                node = child;
+            }
+            node.command = command;
+            node.word = word;
+            node.alias = alias;
+        }
+
+        private Node addChild(char c)
+        {
+            // keep the keys sorted so collecting yields alphabetical order
+            int index = 0;
+            while (index < this.keys.length && this.keys[index] < c)
+            {
+                ++index;
+            }
+            char[] newKeys = new char[this.keys.length + 1];
+            Node[] newChildren = new Node[this.children.length + 1];
+            System.arraycopy(this.keys, 0, newKeys, 0, index);
+            System.arraycopy(this.children, 0, newChildren, 0, index);
+            System.arraycopy(this.keys, index, newKeys, index + 1, this.keys.length - index);
+            System.arraycopy(this.children, index, newChildren, index + 1, this.children.length - index);
+            Node node = new Node();
+            newKeys[index] = c;
+            newChildren[index] = node;
+            this.keys = newKeys;
+            this.children = newChildren;
+            return node;
+        }
+
+        /**
+         * Computes the single command reachable from each node.
+         *
+         * @return false if more than one command is reachable from this node
+         */
+        private boolean seal()
+        {
+            boolean isUnique = true;
+            SubCommand found = this.command;
+            for (Node child : this.children)
+            {
+                if (!child.seal())
+                {
+                    isUnique = false;
+                }
+                else if (child.unique != null)
+                {
+                    if (found == null)
+                    {
+                        found = child.unique;
+                    }
+                    else if (found != child.unique)
+                    {
+                        isUnique = false;
+                    }
+                }
+            }
+            this.unique = (isUnique ? found : null);
+            return isUnique;
+        }
+
+        private void collect(List<String> names, List<String> aliases)
+        {
+            if (this.word != null)
+            {
+                (this.alias ? aliases : names).add(this.word);
+            }
+            for (Node child : this.children)
+            {
+                child.collect(names, aliases);
+            }
+        }
+    }
+}
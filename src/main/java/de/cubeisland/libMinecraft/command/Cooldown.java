@@ -0,0 +1,19 @@
+package de.cubeisland.libMinecraft.command;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Limits how often a sender may use a command.
+ * A sender can use the command the given number of times in a row,
+ * after that one use gets available again every value / uses milliseconds.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Cooldown
+{
+    public long value();
+    public int uses() default 1;
+}
@@ -0,0 +1,91 @@
+package de.cubeisland.libMinecraft.command;
+
+import de.cubeisland.libMinecraft.translation.Translation;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * This class holds the sorted sub commands and their rendered help lines for one translation.
+ * It doesn't reference the translation, so it can be cached weakly by it.
+ * It gets rebuilt when the registered commands or the translation change.
+ */
+final class HelpIndex
+{
+    private final CommandRegistry registry;
+    private final String baseLabel;
+    private final int revision;
+    private final SubCommand[] commands;
+    private final String[] usageLines;
+    private final String[] descriptionLines;
+
+    public HelpIndex(CommandRegistry registry, Translation translation, String baseLabel)
+    {
+        Collection<SubCommand> commands = registry.getCommands();
+        this.registry = registry;
+        this.baseLabel = baseLabel;
+        this.revision = translation.getRevision();
+        this.commands = commands.toArray(new SubCommand[commands.size()]);
+        Arrays.sort(this.commands, SubCommand.COMPARATOR);
+
+        this.usageLines = new String[this.commands.length];
+        this.descriptionLines = new String[this.commands.length];
+        SubCommand command;
+        for (int i = 0; i < this.commands.length; ++i)
+        {
+            command = this.commands[i];
+            this.usageLines[i] = "/" + baseLabel + " " + command.getName() + " " + command.getUsage();
+            this.descriptionLines[i] = "    " + translation.translate(command.getDescriptionKey());
+        }
+    }
+
+    /**
+     * Checks whether this index was rendered for the given commands, label and translation revision
+     *
+     * @param registry the registered commands
+     * @param baseLabel the label of the base command
+     * @param revision the revision of the translation
+     * @return true if it matches
+     */
+    public boolean isValidFor(CommandRegistry registry, String baseLabel, int revision)
+    {
+        return this.registry == registry && this.revision == revision && this.baseLabel.equals(baseLabel);
+    }
+
+    public int size()
+    {
+        return this.commands.length;
+    }
+
+    public SubCommand getCommand(int index)
+    {
+        return this.commands[index];
+    }
+
+    public String getUsageLine(int index)
+    {
+        return this.usageLines[index];
+    }
+
+    public String getDescriptionLine(int index)
+    {
+        return this.descriptionLines[index];
+    }
+
+    /**
+     * Returns the index of the given command
+     *
+     * @param command the command
+     * @return the index or -1
+     */
+    public int indexOf(SubCommand command)
+    {
+        for (int i = 0; i < this.commands.length; ++i)
+        {
+            if (this.commands[i] == command)
+            {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
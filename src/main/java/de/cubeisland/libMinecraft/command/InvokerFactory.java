@@ -0,0 +1,456 @@
+package de.cubeisland.libMinecraft.command;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.bukkit.command.CommandSender;
+
+/**
+ * This class binds command methods to invokers.
+ * Public methods of public classes get a generated class which calls the method directly,
+ * so there is no reflection and no boxing of the result per call.
+ * Everything else (or anything the generation fails for) falls back to Method.invoke().
+ *
+ * The generated classes use class file version 49, which needs no stack map frames.
+ */
+final class InvokerFactory
+{
+    private static final String INVOKER_PACKAGE = "de/cubeisland/libMinecraft/command/generated/";
+    private static final AtomicInteger COUNTER = new AtomicInteger();
+
+    private InvokerFactory()
+    {}
+
+    /**
+     * Binds the given method to an invoker
+     *
+     * @param method the method with a (CommandSender, CommandArgs) signature
+     * @return the invoker
+     */
+    public static CommandInvoker bind(Method method)
+    {
+        if (isDirectlyCallable(method))
+        {
+            try
+            {
+                return generate(method);
+            }
+            catch (Throwable t)
+            {}
+        }
+        method.setAccessible(true);
+        return new ReflectiveInvoker(method);
+    }
+
+    /**
+     * Checks whether the given invoker calls its method directly
+     *
+     * @param invoker the invoker
+     * @return true if the invoker was generated
+     */
+    static boolean isGenerated(CommandInvoker invoker)
+    {
+        return invoker.getClass().getClassLoader() instanceof InvokerLoader;
+    }
+
+    private static boolean isDirectlyCallable(Method method)
+    {
+        Class<?> clazz = method.getDeclaringClass();
+        if (clazz.isInterface() || !Modifier.isPublic(method.getModifiers()))
+        {
+            return false;
+        }
+        for (Class<?> c = clazz; c != null; c = c.getEnclosingClass())
+        {
+            if (!Modifier.isPublic(c.getModifiers()))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static CommandInvoker generate(Method method) throws Exception
+    {
+        String name = INVOKER_PACKAGE + "Invoker" + COUNTER.incrementAndGet();
+        byte[] bytes = new ClassWriter(name, method).toByteArray();
+
+        ClassLoader parent = method.getDeclaringClass().getClassLoader();
+        if (parent == null)
+        {
+            parent = InvokerFactory.class.getClassLoader();
+        }
+        Class<?> clazz = new InvokerLoader(parent).define(name.replace('/', '.'), bytes);
+        return (CommandInvoker)clazz.newInstance();
+    }
+
+    private static String internalName(Class<?> clazz)
+    {
+        return clazz.getName().replace('.', '/');
+    }
+
+    private static String descriptor(Class<?> clazz)
+    {
+        if (clazz.isArray())
+        {
+            return internalName(clazz);
+        }
+        if (clazz.isPrimitive())
+        {
+            if (clazz == void.class)
+            {
+                return "V";
+            }
+            if (clazz == boolean.class)
+            {
+                return "Z";
+            }
+            if (clazz == byte.class)
+            {
+                return "B";
+            }
+            if (clazz == char.class)
+            {
+                return "C";
+            }
+            if (clazz == short.class)
+            {
+                return "S";
+            }
+            if (clazz == int.class)
+            {
+                return "I";
+            }
+            if (clazz == long.class)
+            {
+                return "J";
+            }
+            if (clazz == float.class)
+            {
+                return "F";
+            }
+            return "D";
+        }
+        return "L" + internalName(clazz) + ";";
+    }
+
+    /**
+     * Defines the generated classes.
+     * The library's own types are resolved to the classes the invoker interface uses,
+     * everything else goes to the class loader of the command container.
+     */
+    private static final class InvokerLoader extends ClassLoader
+    {
+        public InvokerLoader(ClassLoader parent)
+        {
+            super(parent);
+        }
+
+        @Override
+        protected synchronized Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException
+        {
+            if (CommandInvoker.class.getName().equals(name))
+            {
+                return CommandInvoker.class;
+            }
+            if (CommandSender.class.getName().equals(name))
+            {
+                return CommandSender.class;
+            }
+            if (CommandArgs.class.getName().equals(name))
+            {
+                return CommandArgs.class;
+            }
+            return super.loadClass(name, resolve);
+        }
+
+        public Class<?> define(String name, byte[] bytes)
+        {
+            return this.defineClass(name, bytes, 0, bytes.length);
+        }
+    }
+
+    /**
+     * Writes the class file of an invoker:
+     *
+     * public class InvokerN implements CommandInvoker
+     * {
+     *     public boolean invoke(Object container, CommandSender sender, CommandArgs args)
+     *     {
+     *         return ((Container)container).method(sender, args); // or the static call
+     *     }
+     * }
+     *
+     * followed by the same result handling as the reflective invoker.
+     */
+    private static final class ClassWriter
+    {
+        private static final int CLASS = 7;
+        private static final int UTF8 = 1;
+        private static final int METHODREF = 10;
+        private static final int NAME_AND_TYPE = 12;
+
+        private static final int ACC_PUBLIC = 0x0001;
+        private static final int ACC_SUPER = 0x0020;
+
+        private static final int ALOAD_0 = 0x2A;
+        private static final int ALOAD_1 = 0x2B;
+        private static final int ALOAD_2 = 0x2C;
+        private static final int ALOAD_3 = 0x2D;
+        private static final int ICONST_1 = 0x04;
+        private static final int POP = 0x57;
+        private static final int POP2 = 0x58;
+        private static final int DUP = 0x59;
+        private static final int IFEQ = 0x99;
+        private static final int IRETURN = 0xAC;
+        private static final int RETURN = 0xB1;
+        private static final int INVOKEVIRTUAL = 0xB6;
+        private static final int INVOKESPECIAL = 0xB7;
+        private static final int INVOKESTATIC = 0xB8;
+        private static final int CHECKCAST = 0xC0;
+        private static final int INSTANCEOF = 0xC1;
+
+        private final ByteArrayOutputStream poolBytes = new ByteArrayOutputStream();
+        private final DataOutputStream pool = new DataOutputStream(this.poolBytes);
+        private final Map<String, Integer> entries = new HashMap<String, Integer>();
+        private int poolSize = 1;
+
+        private final String name;
+        private final Method method;
+
+        public ClassWriter(String name, Method method)
+        {
+            this.name = name;
+            this.method = method;
+        }
+
+        public byte[] toByteArray() throws IOException
+        {
+            int thisClass = this.classEntry(this.name);
+            int superClass = this.classEntry("java/lang/Object");
+            int invokerInterface = this.classEntry(internalName(CommandInvoker.class));
+            int code = this.utf8("Code");
+
+            byte[] constructor = this.constructorCode();
+            byte[] invoke = this.invokeCode();
+            int init = this.utf8("<init>");
+            int initType = this.utf8("()V");
+            int invokeName = this.utf8("invoke");
+            int invokeType = this.utf8("(Ljava/lang/Object;" + descriptor(CommandSender.class) + descriptor(CommandArgs.class) + ")Z");
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(49);
+            out.writeShort(this.poolSize);
+            this.pool.flush();
+            this.poolBytes.writeTo(out);
+            out.writeShort(ACC_PUBLIC | ACC_SUPER);
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            out.writeShort(1);
+            out.writeShort(invokerInterface);
+            out.writeShort(0); // fields
+            out.writeShort(2); // methods
+            writeMethod(out, init, initType, code, 1, 1, constructor);
+            writeMethod(out, invokeName, invokeType, code, 3, 4, invoke);
+            out.writeShort(0); // attributes
+            out.flush();
+            return bytes.toByteArray();
+        }
+
+        private static void writeMethod(DataOutputStream out, int name, int type, int codeAttribute, int maxStack, int maxLocals, byte[] code) throws IOException
+        {
+            out.writeShort(ACC_PUBLIC);
+            out.writeShort(name);
+            out.writeShort(type);
+            out.writeShort(1);
+            out.writeShort(codeAttribute);
+            out.writeInt(12 + code.length);
+            out.writeShort(maxStack);
+            out.writeShort(maxLocals);
+            out.writeInt(code.length);
+            out.write(code);
+            out.writeShort(0); // exception table
+            out.writeShort(0); // attributes
+        }
+
+        private byte[] constructorCode() throws IOException
+        {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream code = new DataOutputStream(bytes);
+            code.writeByte(ALOAD_0);
+            code.writeByte(INVOKESPECIAL);
+            code.writeShort(this.methodEntry("java/lang/Object", "<init>", "()V"));
+            code.writeByte(RETURN);
+            code.flush();
+            return bytes.toByteArray();
+        }
+
+        private byte[] invokeCode() throws IOException
+        {
+            Class<?> owner = this.method.getDeclaringClass();
+            Class<?> returnType = this.method.getReturnType();
+            String type = "(" + descriptor(CommandSender.class) + descriptor(CommandArgs.class) + ")" + descriptor(returnType);
+            int target = this.methodEntry(internalName(owner), this.method.getName(), type);
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream code = new DataOutputStream(bytes);
+            if (Modifier.isStatic(this.method.getModifiers()))
+            {
+                code.writeByte(ALOAD_2);
+                code.writeByte(ALOAD_3);
+                code.writeByte(INVOKESTATIC);
+            }
+            else
+            {
+                code.writeByte(ALOAD_1);
+                code.writeByte(CHECKCAST);
+                code.writeShort(this.classEntry(internalName(owner)));
+                code.writeByte(ALOAD_2);
+                code.writeByte(ALOAD_3);
+                code.writeByte(INVOKEVIRTUAL);
+            }
+            code.writeShort(target);
+
+            if (returnType == boolean.class)
+            {
+                code.writeByte(IRETURN);
+            }
+            else if (returnType.isAssignableFrom(Boolean.class))
+            {
+                // Boolean, Object, Serializable or Comparable: Boolean results count
+                int booleanClass = this.classEntry("java/lang/Boolean");
+                code.writeByte(DUP);
+                code.writeByte(INSTANCEOF);
+                code.writeShort(booleanClass);
+                code.writeByte(IFEQ);
+                code.writeShort(3 + 3 + 3 + 1);
+                code.writeByte(CHECKCAST);
+                code.writeShort(booleanClass);
+                code.writeByte(INVOKEVIRTUAL);
+                code.writeShort(this.methodEntry("java/lang/Boolean", "booleanValue", "()Z"));
+                code.writeByte(IRETURN);
+                code.writeByte(POP);
+                code.writeByte(ICONST_1);
+                code.writeByte(IRETURN);
+            }
+            else
+            {
+                if (returnType == long.class || returnType == double.class)
+                {
+                    code.writeByte(POP2);
+                }
+                else if (returnType != void.class)
+                {
+                    code.writeByte(POP);
+                }
+                code.writeByte(ICONST_1);
+                code.writeByte(IRETURN);
+            }
+            code.flush();
+            return bytes.toByteArray();
+        }
+
+        private int utf8(String value) throws IOException
+        {
+            String key = "U" + value;
+            Integer index = this.entries.get(key);
+            if (index == null)
+            {
+                this.pool.writeByte(UTF8);
+                this.pool.writeUTF(value);
+                index = this.poolSize++;
+                this.entries.put(key, index);
+            }
+            return index;
+        }
+
+        private int classEntry(String internalName) throws IOException
+        {
+            String key = "C" + internalName;
+            Integer index = this.entries.get(key);
+            if (index == null)
+            {
+                int nameIndex = this.utf8(internalName);
+                this.pool.writeByte(CLASS);
+                this.pool.writeShort(nameIndex);
+                index = this.poolSize++;
+                this.entries.put(key, index);
+            }
+            return index;
+        }
+
+        private int methodEntry(String owner, String name, String type) throws IOException
+        {
+            String key = "M" + owner + "." + name + type;
+            Integer index = this.entries.get(key);
+            if (index == null)
+            {
+                int classIndex = this.classEntry(owner);
+                int nameIndex = this.utf8(name);
+                int typeIndex = this.utf8(type);
+                this.pool.writeByte(NAME_AND_TYPE);
+                this.pool.writeShort(nameIndex);
+                this.pool.writeShort(typeIndex);
+                int nameAndType = this.poolSize++;
+                this.pool.writeByte(METHODREF);
+                this.pool.writeShort(classIndex);
+                this.pool.writeShort(nameAndType);
+                index = this.poolSize++;
+                this.entries.put(key, index);
+            }
+            return index;
+        }
+    }
+
+    /**
+     * Calls the method through reflection and unwraps the exceptions it throws
+     */
+    private static final class ReflectiveInvoker implements CommandInvoker
+    {
+        private final Method method;
+
+        public ReflectiveInvoker(Method method)
+        {
+            this.method = method;
+        }
+
+        public boolean invoke(Object commandContainer, CommandSender sender, CommandArgs args) throws Throwable
+        {
+            try
+            {
+                Object result = this.method.invoke(commandContainer, sender, args);
+                if (result instanceof Boolean)
+                {
+                    return ((Boolean)result).booleanValue();
+                }
+                return true;
+            }
+            catch (IllegalAccessException e)
+            {}
+            catch (IllegalArgumentException e)
+            {}
+            catch (InvocationTargetException e)
+            {
+                Throwable t = e.getCause();
+                if (t instanceof CommandException)
+                {
+                    throw (CommandException)t;
+                }
+                else
+                {
+                    throw t;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package de.cubeisland.libMinecraft.command;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.LinkedHashSet;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.bukkit.command.CommandSender;
+import org.bukkit.plugin.Plugin;
+
+/**
+ * This class wraps a command sender for commands running off the main thread.
+ * Messages get queued and are sent on the main thread,
+ * all other calls are passed to the original sender.
+ */
+final class MainThreadSender implements InvocationHandler, Runnable
+{
+    private final Plugin plugin;
+    private final CommandSender sender;
+    private final Queue<String> messages;
+    private final AtomicBoolean flushScheduled;
+
+    private MainThreadSender(Plugin plugin, CommandSender sender)
+    {
+        this.plugin = plugin;
+        this.sender = sender;
+        this.messages = new ConcurrentLinkedQueue<String>();
+        this.flushScheduled = new AtomicBoolean(false);
+    }
+
+    /**
+     * Wraps the given sender. The wrapper implements all interfaces of the sender,
+     * so commands can still check for players.
+     *
+     * @param plugin the plugin used to schedule the messages
+     * @param sender the sender
+     * @return the wrapped sender
+     */
+    public static CommandSender wrap(Plugin plugin, CommandSender sender)
+    {
+        Set<Class<?>> interfaces = new LinkedHashSet<Class<?>>();
+        collectInterfaces(sender.getClass(), interfaces);
+        return (CommandSender)Proxy.newProxyInstance(sender.getClass().getClassLoader(), interfaces.toArray(new Class<?>[interfaces.size()]), new MainThreadSender(plugin, sender));
+    }
+
+    private static void collectInterfaces(Class<?> clazz, Set<Class<?>> interfaces)
+    {
+        while (clazz != null)
+        {
+            for (Class<?> iface : clazz.getInterfaces())
+            {
+                if (interfaces.add(iface))
+                {
+                    collectInterfaces(iface, interfaces);
+                }
+            }
+            clazz = clazz.getSuperclass();
+        }
+    }
+
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+    {
+        if ("sendMessage".equals(method.getName()) && args != null && args.length == 1)
+        {
+            if (args[0] instanceof String)
+            {
+                this.messages.add((String)args[0]);
+            }
+            else if (args[0] instanceof String[])
+            {
+                for (String message : (String[])args[0])
+                {
+                    this.messages.add(message);
+                }
+            }
+            this.scheduleFlush();
+            return null;
+        }
+        if ("equals".equals(method.getName()) && args != null && args.length == 1)
+        {
+            // wrappers are only equal to wrappers of an equal sender, which keeps equals symmetric
+            return proxy == args[0] || this.sender.equals(unwrap(args[0]));
+        }
+        try
+        {
+            return method.invoke(this.sender, args);
+        }
+        catch (InvocationTargetException e)
+        {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Returns the sender wrapped by the given object
+     *
+     * @param object the object
+     * @return the wrapped sender or null if the object is no wrapper
+     */
+    private static Object unwrap(Object object)
+    {
+        if (object != null && Proxy.isProxyClass(object.getClass()))
+        {
+            InvocationHandler handler = Proxy.getInvocationHandler(object);
+            if (handler instanceof MainThreadSender)
+            {
+                return ((MainThreadSender)handler).sender;
+            }
+        }
+        return null;
+    }
+
+    private void scheduleFlush()
+    {
+        if (this.flushScheduled.compareAndSet(false, true))
+        {
+            if (this.plugin.isEnabled())
+            {
+                this.plugin.getServer().getScheduler().scheduleSyncDelayedTask(this.plugin, this);
+            }
+            else
+            {
+                this.flushScheduled.set(false);
+            }
+        }
+    }
+
+    /**
+     * Sends the queued messages, this runs on the main thread
+     */
+    public void run()
+    {
+        this.flushScheduled.set(false);
+        String message;
+        while ((message = this.messages.poll()) != null)
+        {
+            this.sender.sendMessage(message);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package de.cubeisland.libMinecraft.command;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import org.bukkit.command.CommandSender;
+import org.bukkit.permissions.Permission;
+
+/**
+ * This class caches which sub commands a sender is allowed to use.
+ * Bukkit doesn't notify about permission changes, so entries expire after a while
+ * and can be invalidated explicitly. Senders are only weakly referenced.
+ */
+final class PermissionCache
+{
+    private final Map<CommandSender, Entry> entries;
+    private long ttl;
+
+    /**
+     * Initializes the cache
+     *
+     * @param ttl the time in milliseconds an entry stays valid
+     */
+    public PermissionCache(long ttl)
+    {
+        this.entries = new WeakHashMap<CommandSender, Entry>();
+        this.setTtl(ttl);
+    }
+
+    public void setTtl(long ttl)
+    {
+        if (ttl < 0)
+        {
+            throw new IllegalArgumentException("The TTL must not be negative!");
+        }
+        this.ttl = ttl;
+    }
+
+    public long getTtl()
+    {
+        return this.ttl;
+    }
+
+    /**
+     * Checks whether the sender may use the given command
+     *
+     * @param sender the sender
+     * @param command the command
+     * @return true if the sender has the permission of the command or the command has none
+     */
+    public boolean isPermitted(CommandSender sender, SubCommand command)
+    {
+        Permission permission = command.getPermission();
+        if (permission == null)
+        {
+            return true;
+        }
+        final long now = System.currentTimeMillis();
+        Boolean permitted;
+        synchronized (this.entries)
+        {
+            Entry entry = this.entries.get(sender);
+            if (entry == null || now - entry.created > this.ttl)
+            {
+                entry = new Entry(now);
+                this.entries.put(sender, entry);
+            }
+            permitted = entry.permitted.get(command);
+            if (permitted == null)
+            {
+                permitted = Boolean.valueOf(sender.hasPermission(permission));
+                entry.permitted.put(command, permitted);
+            }
+        }
+        return permitted.booleanValue();
+    }
+
+    /**
+     * Invalidates the cached permissions of the given sender
+     *
+     * @param sender the sender
+     */
+    public void invalidate(CommandSender sender)
+    {
+        synchronized (this.entries)
+        {
+            this.entries.remove(sender);
+        }
+    }
+
+    /**
+     * Invalidates all cached permissions
+     */
+    public void invalidateAll()
+    {
+        synchronized (this.entries)
+        {
+            this.entries.clear();
+        }
+    }
+
+    private static final class Entry
+    {
+        private final long created;
+        private final Map<SubCommand, Boolean> permitted;
+
+        private Entry(long created)
+        {
+            this.created = created;
+            this.permitted = new HashMap<SubCommand, Boolean>();
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package de.cubeisland.libMinecraft.command;
+
+import gnu.trove.map.hash.TLongLongHashMap;
+import gnu.trove.procedure.TLongLongProcedure;
+import org.bukkit.command.CommandSender;
+import org.bukkit.command.ConsoleCommandSender;
+
+/**
+ * This class implements a token bucket per sender.
+ * The state of a bucket is a single timestamp (the time the bucket will be full again),
+ * which is stored in a primitive map keyed by a hash of the sender's name.
+ * Full buckets carry no information, so they get purged from time to time.
+ * The console is never limited.
+ */
+final class RateLimiter
+{
+    private static final int PURGE_INTERVAL = 1024;
+
+    private final long interval;
+    private final long tolerance;
+    private final TLongLongHashMap buckets;
+    private int operations;
+
+    /**
+     * Initializes the rate limiter
+     *
+     * @param period the period in milliseconds
+     * @param uses the number of uses per period
+     */
+    public RateLimiter(long period, int uses)
+    {
+        if (period < 1)
+        {
+            throw new IllegalArgumentException("The period must be at least 1 ms!");
+        }
+        if (uses < 1)
+        {
+            throw new IllegalArgumentException("There must be at least 1 use!");
+        }
+        this.interval = Math.max(1, period / uses);
+        this.tolerance = this.interval * (uses - 1);
+        this.buckets = new TLongLongHashMap();
+        this.operations = 0;
+    }
+
+    /**
+     * Creates a rate limiter from the given annotation
+     *
+     * @param cooldown the annotation or null
+     * @return the rate limiter or null if there is no annotation
+     */
+    public static RateLimiter of(Cooldown cooldown)
+    {
+        if (cooldown == null)
+        {
+            return null;
+        }
+        return new RateLimiter(cooldown.value(), cooldown.uses());
+    }
+
+    /**
+     * Tries to take a token of the sender's bucket
+     *
+     * @param sender the sender
+     * @return 0 if the sender may use the command, otherwise the milliseconds to wait
+     */
+    public synchronized long acquire(CommandSender sender)
+    {
+        if (sender instanceof ConsoleCommandSender)
+        {
+            return 0;
+        }
+        final long now = System.currentTimeMillis();
+        if (++this.operations >= PURGE_INTERVAL)
+        {
+            this.operations = 0;
+            this.purge(now);
+        }
+
+        final long key = hash(sender.getName());
+        long fullAt = this.buckets.get(key);
+        if (fullAt < now)
+        {
+            fullAt = now;
+        }
+        long wait = fullAt - now - this.tolerance;
+        if (wait > 0)
+        {
+            return wait;
+        }
+        this.buckets.put(key, fullAt + this.interval);
+        return 0;
+    }
+
+    /**
+     * Gives back a token taken by acquire(), for example when the command could not run
+     *
+     * @param sender the sender
+     */
+    public synchronized void release(CommandSender sender)
+    {
+        if (sender instanceof ConsoleCommandSender)
+        {
+            return;
+        }
+        final long key = hash(sender.getName());
+        final long fullAt = this.buckets.get(key) - this.interval;
+        if (fullAt > System.currentTimeMillis())
+        {
+            this.buckets.put(key, fullAt);
+        }
+        else
+        {
+            this.buckets.remove(key);
+        }
+    }
+
+    /**
+     * Resets the bucket of the given sender
+     *
+     * @param sender the sender
+     */
+    public synchronized void reset(CommandSender sender)
+    {
+        this.buckets.remove(hash(sender.getName()));
+    }
+
+    private void purge(final long now)
+    {
+        this.buckets.retainEntries(new TLongLongProcedure() {
+            public boolean execute(long key, long fullAt)
+            {
+                return fullAt > now;
+            }
+        });
+    }
+
+    /**
+     * 64 bit FNV-1a hash of the lower case name
+     */
+    private static long hash(String name)
+    {
+        long hash = 0xcbf29ce484222325L;
+        final int length = name.length();
+        for (int i = 0; i < length; ++i)
+        {
+            hash ^= Character.toLowerCase(name.charAt(i));
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+}
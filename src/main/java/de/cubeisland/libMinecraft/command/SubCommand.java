@@ -1,6 +1,6 @@
 package de.cubeisland.libMinecraft.command;
 
-import java.lang.reflect.InvocationTargetException;
+import de.cubeisland.libMinecraft.translation.MessageKey;
 import java.lang.reflect.Method;
 import java.util.Comparator;
 import org.bukkit.command.CommandSender;
@@ -14,17 +14,39 @@ import org.bukkit.permissions.Permission;
  */
 public class SubCommand
 {
-    public static final Comparator COMPARATOR = new SubCommandComparator();
+    public static final Comparator<SubCommand> COMPARATOR = new SubCommandComparator();
     private final Object commandContainer;
     private final Method method;
+    private final CommandInvoker invoker;
 
     private final String name;
     private final String[] aliases;
     private final Permission permission;
     private final boolean addPermissionParent;
     private final String usage;
+    private final ArgumentSchema schema;
+    private final boolean async;
+    private final long timeout;
+    private final CommandStats stats;
+    private final RateLimiter rateLimiter;
+    private final MessageKey descriptionKey;
 
     protected SubCommand(Object commandContainer, Method method, String name, String[] aliases, Permission permission, boolean addPermissionParent, String usage)
+    {
+        this(commandContainer, method, name, aliases, permission, addPermissionParent, usage, null);
+    }
+
+    protected SubCommand(Object commandContainer, Method method, String name, String[] aliases, Permission permission, boolean addPermissionParent, String usage, ArgumentSchema schema)
+    {
+        this(commandContainer, method, name, aliases, permission, addPermissionParent, usage, schema, false, 0);
+    }
+
+    protected SubCommand(Object commandContainer, Method method, String name, String[] aliases, Permission permission, boolean addPermissionParent, String usage, ArgumentSchema schema, boolean async, long timeout)
+    {
+        this(commandContainer, method, name, aliases, permission, addPermissionParent, usage, schema, async, timeout, null);
+    }
+
+    protected SubCommand(Object commandContainer, Method method, String name, String[] aliases, Permission permission, boolean addPermissionParent, String usage, ArgumentSchema schema, boolean async, long timeout, RateLimiter rateLimiter)
     {
         if (commandContainer == null)
         {
@@ -42,6 +64,10 @@ public class SubCommand
         {
             throw new IllegalArgumentException("The aliases must not be null!");
         }
+        if (timeout < 0)
+        {
+            throw new IllegalArgumentException("The timeout must not be negative!");
+        }
 
         Class<?>[] paramTypes = method.getParameterTypes();
         if (paramTypes.length != 2 || paramTypes[0] != CommandSender.class || paramTypes[1] != CommandArgs.class)
@@ -51,43 +77,98 @@ public class SubCommand
 
         this.commandContainer = commandContainer;
         this.method = method;
-        this.method.setAccessible(true);
+        this.invoker = InvokerFactory.bind(method);
 
         this.name = name;
         this.aliases = aliases;
         this.permission = permission;
         this.addPermissionParent = addPermissionParent;
-        this.usage = usage;
+        this.schema = schema;
+        this.async = async;
+        this.timeout = timeout;
+        this.stats = new CommandStats();
+        this.rateLimiter = rateLimiter;
+        this.descriptionKey = MessageKey.of(name + "_description");
+        if ((usage == null || usage.length() == 0) && schema != null)
+        {
+            this.usage = schema.getUsage();
+        }
+        else
+        {
+            this.usage = usage;
+        }
     }
 
-    public boolean execute(CommandSender sender, CommandArgs args) throws Throwable
+    /**
+     * Parses the arguments with the argument schema of this command
+     *
+     * @param args the arguments
+     * @return -1 if the arguments are valid, otherwise the index of the first invalid parameter
+     * @see ArgumentSchema#parse(CommandArgs)
+     */
+    public int parseArguments(CommandArgs args)
     {
-        try
+        if (this.schema == null)
         {
-            Object result = this.method.invoke(this.commandContainer, sender, args);
-            if (result instanceof Boolean)
-            {
-                return ((Boolean)result).booleanValue();
-            }
-            return true;
+            return -1;
         }
-        catch (IllegalAccessException e)
-        {}
-        catch (IllegalArgumentException e)
-        {}
-        catch (InvocationTargetException e)
+        return this.schema.parse(args);
+    }
+
+    /**
+     * Takes one use of the sender's cooldown
+     *
+     * @param sender the sender
+     * @return 0 if the sender may use the command, otherwise the milliseconds to wait
+     */
+    public long acquireCooldown(CommandSender sender)
+    {
+        if (this.rateLimiter == null)
         {
-            Throwable t = e.getCause();
-            if (t instanceof CommandException)
-            {
-                throw (CommandException)t;
-            }
-            else
-            {
-                throw t;
-            }
+            return 0;
         }
-        return true;
+        return this.rateLimiter.acquire(sender);
+    }
+
+    /**
+     * Gives back the use taken by acquireCooldown(), for example when the command could not run
+     *
+     * @param sender the sender
+     */
+    public void releaseCooldown(CommandSender sender)
+    {
+        if (this.rateLimiter != null)
+        {
+            this.rateLimiter.release(sender);
+        }
+    }
+
+    /**
+     * Resets the cooldown of the given sender
+     *
+     * @param sender the sender
+     */
+    public void resetCooldown(CommandSender sender)
+    {
+        if (this.rateLimiter != null)
+        {
+            this.rateLimiter.reset(sender);
+        }
+    }
+
+    public boolean execute(CommandSender sender, CommandArgs args) throws Throwable
+    {
+        return this.invoker.invoke(this.commandContainer, sender, args);
+    }
+
+    /**
+     * Returns the invoker bound to the method of this command
+     *
+     * @return the invoker
+     */
+    CommandInvoker getInvoker()
+    {
+        return this.invoker;
     }
 
     public String getName()
@@ -115,6 +196,46 @@ public class SubCommand
         return this.usage;
     }
 
+    /**
+     * Returns the translation key of the description of this command
+     *
+     * @return the key
+     */
+    public MessageKey getDescriptionKey()
+    {
+        return this.descriptionKey;
+    }
+
+    public ArgumentSchema getArgumentSchema()
+    {
+        return this.schema;
+    }
+
+    public boolean isAsync()
+    {
+        return this.async;
+    }
+
+    /**
+     * Returns the execution metrics of this command
+     *
+     * @return the metrics
+     */
+    public CommandStats getStats()
+    {
+        return this.stats;
+    }
+
+    /**
+     * Returns the timeout of this command if it runs async
+     *
+     * @return the timeout in milliseconds or 0 for the default
+     */
+    public long getTimeout()
+    {
+        return this.timeout;
+    }
+
     private static final class SubCommandComparator implements Comparator<SubCommand>
     {
         public int compare(SubCommand o1, SubCommand o2)
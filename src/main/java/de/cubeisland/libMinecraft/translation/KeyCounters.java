@@ -0,0 +1,88 @@
+package de.cubeisland.libMinecraft.translation;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * This class holds one counter per message key id.
+ * The counters are plain slots of an atomic array (8 bytes per key),
+ * so neighbouring keys share cache lines. Counting is only contended
+ * when threads hit neighbouring keys at the same time, which is cheaper
+ * than padding every counter of every translation to a cache line.
+ * The counters grow with the registered keys, increments racing
+ * with a resize may get lost, which is fine for statistics.
+ */
+final class KeyCounters
+{
+    private volatile AtomicLongArray counters;
+
+    public KeyCounters()
+    {
+        this.counters = new AtomicLongArray(Math.max(MessageKey.count(), 16));
+    }
+
+    /**
+     * Increments the counter of the given key id
+     *
+     * @param id the key id
+     */
+    public void increment(int id)
+    {
+        AtomicLongArray current = this.counters;
+        if (id >= current.length())
+        {
+            current = this.grow(id);
+        }
+        current.incrementAndGet(id);
+    }
+
+    private synchronized AtomicLongArray grow(int id)
+    {
+        AtomicLongArray current = this.counters;
+        if (id < current.length())
+        {
+            return current;
+        }
+        final int size = current.length();
+        AtomicLongArray grown = new AtomicLongArray(Math.max(size * 2, id + 1));
+        for (int i = 0; i < size; ++i)
+        {
+            grown.set(i, current.get(i));
+        }
+        this.counters = grown;
+        return grown;
+    }
+
+    /**
+     * Returns the counter of the given key id
+     *
+     * @param id the key id
+     * @return the count
+     */
+    public long get(int id)
+    {
+        final AtomicLongArray current = this.counters;
+        if (id < 0 || id >= current.length())
+        {
+            return 0;
+        }
+        return current.get(id);
+    }
+
+    /**
+     * Returns the number of key ids covered by the counters
+     *
+     * @return the number of counters
+     */
+    public int size()
+    {
+        return this.counters.length();
+    }
+
+    /**
+     * Resets all counters
+     */
+    public synchronized void reset()
+    {
+        this.counters = new AtomicLongArray(this.counters.length());
+    }
+}
@@ -0,0 +1,184 @@
+package de.cubeisland.libMinecraft.translation;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+
+/**
+ * This class reads and writes precompiled language bundles.
+ * A bundle holds the messages of a language file with their color codes already translated,
+ * so loading it is a bulk read without any text parsing.
+ *
+ * The format (big endian):
+ * int    magic (LMLB)
+ * int    version
+ * int    number of messages
+ * int[4] for every message: key offset, key length, message offset, message length
+ * int    number of chars in the string table
+ * char[] the string table
+ */
+final class LanguageBundle
+{
+    private static final int MAGIC = 0x4C4D4C42;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 12;
+    private static final int INDEX_ENTRY_SIZE = 16;
+
+    private LanguageBundle()
+    {}
+
+    /**
+     * Reads a bundle from the given stream
+     *
+     * @param is the stream, it gets closed
+     * @return the messages indexed by the ids of their keys
+     * @throws IOException if reading fails or the bundle is invalid
+     */
+    public static MessageTemplate[] read(InputStream is) throws IOException
+    {
+        byte[] buffer = new byte[8192];
+        int length = 0;
+        int read;
+        try
+        {
+            while ((read = is.read(buffer, length, buffer.length - length)) >= 0)
+            {
+                length += read;
+                if (length == buffer.length)
+                {
+                    byte[] newBuffer = new byte[buffer.length * 2];
+                    System.arraycopy(buffer, 0, newBuffer, 0, length);
+                    buffer = newBuffer;
+                }
+            }
+        }
+        finally
+        {
+            is.close();
+        }
+        return read(ByteBuffer.wrap(buffer, 0, length));
+    }
+
+    /**
+     * Reads a bundle from the given file, the file is closed when this returns
+     *
+     * @param file the file
+     * @return the messages indexed by the ids of their keys
+     * @throws IOException if reading fails or the bundle is invalid
+     */
+    public static MessageTemplate[] read(File file) throws IOException
+    {
+        return read(new FileInputStream(file));
+    }
+
+    /**
+     * Reads a bundle from the given buffer
+     *
+     * @param bytes the buffer
+     * @return the messages indexed by the ids of their keys
+     * @throws IOException if the bundle is invalid
+     */
+    public static MessageTemplate[] read(ByteBuffer bytes) throws IOException
+    {
+        if (bytes.remaining() < HEADER_SIZE || bytes.getInt() != MAGIC)
+        {
+            throw new IOException("This is not a language bundle!");
+        }
+        final int version = bytes.getInt();
+        if (version != VERSION)
+        {
+            throw new IOException("Unsupported language bundle version " + version + "!");
+        }
+        final int count = bytes.getInt();
+        if (count < 0 || (long)count * INDEX_ENTRY_SIZE + 4 > bytes.remaining())
+        {
+            throw new IOException("The language bundle is truncated!");
+        }
+        int[] index = new int[count * 4];
+        bytes.asIntBuffer().get(index);
+        bytes.position(bytes.position() + index.length * 4);
+        final int charCount = bytes.getInt();
+        if (charCount < 0 || (long)charCount * 2 > bytes.remaining())
+        {
+            throw new IOException("The language bundle is truncated!");
+        }
+        char[] table = new char[charCount];
+        bytes.asCharBuffer().get(table);
+
+        MessageTemplate[] messages = new MessageTemplate[MessageKey.count()];
+        MessageKey key;
+        int offset;
+        for (int i = 0; i < index.length; i += 4)
+        {
+            if (index[i] < 0 || index[i + 1] < 0 || index[i + 2] < 0 || index[i + 3] < 0
+                || index[i] > charCount - index[i + 1] || index[i + 2] > charCount - index[i + 3])
+            {
+                throw new IOException("The language bundle is corrupted!");
+            }
+            key = MessageKey.of(new String(table, index[i], index[i + 1]));
+            offset = key.getId();
+            if (offset >= messages.length)
+            {
+                MessageTemplate[] newMessages = new MessageTemplate[Math.max(offset + 1, messages.length * 2)];
+                System.arraycopy(messages, 0, newMessages, 0, messages.length);
+                messages = newMessages;
+            }
+            messages[offset] = MessageTemplate.compile(new String(table, index[i + 2], index[i + 3]));
+        }
+        return messages;
+    }
+
+    /**
+     * Writes the given messages as a bundle
+     *
+     * @param messages the messages indexed by the ids of their keys
+     * @param os the stream, it does not get closed
+     * @throws IOException if writing fails
+     */
+    public static void write(MessageTemplate[] messages, OutputStream os) throws IOException
+    {
+        int count = 0;
+        for (MessageTemplate message : messages)
+        {
+            if (message != null)
+            {
+                ++count;
+            }
+        }
+        int[] index = new int[count * 4];
+        StringBuilder table = new StringBuilder();
+        String name;
+        String format;
+        int i = 0;
+        for (int id = 0; id < messages.length; ++id)
+        {
+            if (messages[id] == null)
+            {
+                continue;
+            }
+            name = MessageKey.byId(id).getName();
+            format = messages[id].getFormat();
+            index[i++] = table.length();
+            index[i++] = name.length();
+            table.append(name);
+            index[i++] = table.length();
+            index[i++] = format.length();
+            table.append(format);
+        }
+
+        ByteBuffer bytes = ByteBuffer.allocate(HEADER_SIZE + index.length * 4 + 4 + table.length() * 2);
+        bytes.putInt(MAGIC).putInt(VERSION).putInt(count);
+        bytes.asIntBuffer().put(index);
+        bytes.position(bytes.position() + index.length * 4);
+        bytes.putInt(table.length());
+        CharBuffer chars = bytes.asCharBuffer();
+        chars.put(table.toString());
+
+        os.write(bytes.array());
+        os.flush();
+    }
+}
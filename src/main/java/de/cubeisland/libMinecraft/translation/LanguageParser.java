@@ -0,0 +1,251 @@
+package de.cubeisland.libMinecraft.translation;
+
+import de.cubeisland.libMinecraft.ChatColor;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * This class parses language files in a single pass.
+ * Lines are parsed in place in the read buffer, only the keys and messages are copied.
+ *
+ * The format:
+ * key = message
+ * ; comments and [sections] are ignored
+ * messages starting with @ don't get their color codes translated
+ * messages can be surrounded by double quotes
+ */
+final class LanguageParser
+{
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final int BUFFER_SIZE = 8192;
+
+    private MessageTemplate[] messages;
+    private boolean firstLine;
+
+    private LanguageParser()
+    {
+        this.messages = new MessageTemplate[MessageKey.count()];
+        this.firstLine = true;
+    }
+
+    /**
+     * Parses an UTF-8 encoded language file from the given stream
+     *
+     * @param is the stream, it gets closed
+     * @return the messages indexed by the ids of their keys
+     * @throws IOException if reading fails
+     */
+    public static MessageTemplate[] parse(InputStream is) throws IOException
+    {
+        return parse(new InputStreamReader(is, UTF8.newDecoder().onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE)));
+    }
+
+    /**
+     * Parses a language file from the given reader
+     *
+     * @param reader the reader, it gets closed
+     * @return the messages indexed by the ids of their keys
+     * @throws IOException if reading fails
+     */
+    public static MessageTemplate[] parse(Reader reader) throws IOException
+    {
+        LanguageParser parser = new LanguageParser();
+        try
+        {
+            char[] buffer = new char[BUFFER_SIZE];
+            int start = 0;
+            int end = 0;
+            int scanned = 0;
+            int read;
+            while (true)
+            {
+                if (end == buffer.length)
+                {
+                    if (start > 0)
+                    {
+                        System.arraycopy(buffer, start, buffer, 0, end - start);
+                        end -= start;
+                        scanned -= start;
+                        start = 0;
+                    }
+                    else
+                    {
+                        // the line doesn't fit into the buffer
+                        char[] newBuffer = new char[buffer.length * 2];
+                        System.arraycopy(buffer, 0, newBuffer, 0, end);
+                        buffer = newBuffer;
+                    }
+                }
+                read = reader.read(buffer, end, buffer.length - end);
+                if (read < 0)
+                {
+                    break;
+                }
+                end += read;
+                for (; scanned < end; ++scanned)
+                {
+                    if (buffer[scanned] == '\n')
+                    {
+                        parser.parseLine(buffer, start, scanned);
+                        start = scanned + 1;
+                    }
+                }
+            }
+            parser.parseLine(buffer, start, end);
+        }
+        finally
+        {
+            reader.close();
+        }
+        return parser.messages;
+    }
+
+    /**
+     * Parses an UTF-8 encoded language file.
+     * The file gets streamed and is closed when this returns,
+     * so it can be edited or replaced while the messages are in use.
+     *
+     * @param file the file
+     * @return the messages indexed by the ids of their keys
+     * @throws IOException if reading fails
+     */
+    public static MessageTemplate[] parse(File file) throws IOException
+    {
+        return parse(new FileInputStream(file));
+    }
+
+    /**
+     * Parses a language file from the given characters
+     *
+     * @param chars the characters
+     * @return the messages indexed by the ids of their keys
+     */
+    public static MessageTemplate[] parse(CharBuffer chars)
+    {
+        char[] buffer;
+        int start;
+        int end;
+        if (chars.hasArray())
+        {
+            buffer = chars.array();
+            start = chars.arrayOffset() + chars.position();
+            end = chars.arrayOffset() + chars.limit();
+        }
+        else
+        {
+            buffer = new char[chars.remaining()];
+            chars.duplicate().get(buffer);
+            start = 0;
+            end = buffer.length;
+        }
+        LanguageParser parser = new LanguageParser();
+        for (int i = start; i < end; ++i)
+        {
+            if (buffer[i] == '\n')
+            {
+                parser.parseLine(buffer, start, i);
+                start = i + 1;
+            }
+        }
+        parser.parseLine(buffer, start, end);
+        return parser.messages;
+    }
+
+    private void parseLine(char[] buffer, int start, int end)
+    {
+        if (this.firstLine)
+        {
+            // leading whitespace and the byte order mark of the file are ignored
+            while (start < end && (buffer[start] <= ' ' || buffer[start] == '\uFEFF'))
+            {
+                ++start;
+            }
+            if (start == end)
+            {
+                return;
+            }
+            this.firstLine = false;
+        }
+        if (start >= end)
+        {
+            return;
+        }
+        char firstChar = buffer[start];
+        if (firstChar == ';' || firstChar == '[')
+        {
+            return;
+        }
+        int equalsOffset = start;
+        while (equalsOffset < end && buffer[equalsOffset] != '=')
+        {
+            ++equalsOffset;
+        }
+        if (equalsOffset == end || equalsOffset == start)
+        {
+            return;
+        }
+
+        int keyStart = start;
+        int keyEnd = equalsOffset;
+        while (keyStart < keyEnd && buffer[keyStart] <= ' ')
+        {
+            ++keyStart;
+        }
+        while (keyEnd > keyStart && buffer[keyEnd - 1] <= ' ')
+        {
+            --keyEnd;
+        }
+
+        int messageStart = equalsOffset + 1;
+        int messageEnd = end;
+        while (messageStart < messageEnd && buffer[messageStart] <= ' ')
+        {
+            ++messageStart;
+        }
+        while (messageEnd > messageStart && buffer[messageEnd - 1] <= ' ')
+        {
+            --messageEnd;
+        }
+        boolean parseColors = true;
+        if (messageStart < messageEnd && buffer[messageStart] == '@')
+        {
+            ++messageStart;
+            while (messageStart < messageEnd && buffer[messageStart] <= ' ')
+            {
+                ++messageStart;
+            }
+            parseColors = false;
+        }
+        if (messageEnd - messageStart > 2 && buffer[messageStart] == '"' && buffer[messageEnd - 1] == '"')
+        {
+            ++messageStart;
+            --messageEnd;
+        }
+
+        String message = new String(buffer, messageStart, messageEnd - messageStart);
+        if (parseColors)
+        {
+            message = ChatColor.translateAlternateColorCodes('&', message);
+        }
+        this.put(MessageKey.of(new String(buffer, keyStart, keyEnd - keyStart)), MessageTemplate.compile(message));
+    }
+
+    private void put(MessageKey key, MessageTemplate message)
+    {
+        final int id = key.getId();
+        if (id >= this.messages.length)
+        {
+            MessageTemplate[] newMessages = new MessageTemplate[Math.max(id + 1, this.messages.length * 2)];
+            System.arraycopy(this.messages, 0, newMessages, 0, this.messages.length);
+            this.messages = newMessages;
+        }
+        this.messages[id] = message;
+    }
+}
@@ -0,0 +1,204 @@
+package de.cubeisland.libMinecraft.translation;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+
+/**
+ * This class watches a directory for language files overriding the messages of translations,
+ * usually the language directory in the plugin's data folder.
+ * The files get checked and parsed on an async task, changed messages
+ * are swapped into the watched translations without locking their readers.
+ * Translations merged with withFallback() look up the watched translations live,
+ * so they see the reloaded messages as well.
+ */
+public class LanguageWatcher implements Runnable
+{
+    private static final String FILE_EXT = ".ini";
+
+    private final Plugin plugin;
+    private final File directory;
+    private final Map<Translation, FileState> translations;
+    private final List<Runnable> listeners;
+    private BukkitTask task;
+
+    /**
+     * Initializes the watcher for the language directory in the plugin's data folder
+     *
+     * @param plugin the plugin
+     */
+    public LanguageWatcher(Plugin plugin)
+    {
+        this(plugin, new File(plugin.getDataFolder(), "language"));
+    }
+
+    /**
+     * Initializes the watcher
+     *
+     * @param plugin the plugin
+     * @param directory the directory containing the language files
+     */
+    public LanguageWatcher(Plugin plugin, File directory)
+    {
+        if (plugin == null)
+        {
+            throw new IllegalArgumentException("The plugin must not be null!");
+        }
+        if (directory == null)
+        {
+            throw new IllegalArgumentException("The directory must not be null!");
+        }
+        this.plugin = plugin;
+        this.directory = directory;
+        this.translations = new ConcurrentHashMap<Translation, FileState>();
+        this.listeners = new ArrayList<Runnable>();
+        this.task = null;
+    }
+
+    /**
+     * Watches the override file of the given translation (&lt;directory&gt;/&lt;language&gt;.ini)
+     *
+     * @param translation the translation
+     * @return fluent interface
+     */
+    public LanguageWatcher watch(Translation translation)
+    {
+        if (translation == null)
+        {
+            throw new IllegalArgumentException("The translation must not be null!");
+        }
+        if (translation.isMerged())
+        {
+            throw new IllegalArgumentException("Merged translations can't be watched, watch the translations they got merged from!");
+        }
+        this.translations.put(translation, new FileState(new File(this.directory, translation.getLanguage() + FILE_EXT)));
+        return this;
+    }
+
+    /**
+     * Stops watching the override file of the given translation, loaded overrides stay active
+     *
+     * @param translation the translation
+     * @return fluent interface
+     */
+    public LanguageWatcher unwatch(Translation translation)
+    {
+        this.translations.remove(translation);
+        return this;
+    }
+
+    /**
+     * Adds a listener which gets called after translations got reloaded.
+     * The listener is called on the async task.
+     *
+     * @param listener the listener
+     * @return fluent interface
+     */
+    public LanguageWatcher addReloadListener(Runnable listener)
+    {
+        if (listener != null)
+        {
+            synchronized (this.listeners)
+            {
+                this.listeners.add(listener);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Starts checking the files periodically
+     *
+     * @param interval the interval in ticks
+     * @return fluent interface
+     */
+    public synchronized LanguageWatcher start(long interval)
+    {
+        if (this.task == null)
+        {
+            this.task = this.plugin.getServer().getScheduler().runTaskTimerAsynchronously(this.plugin, this, 0, interval);
+        }
+        return this;
+    }
+
+    /**
+     * Stops checking the files
+     *
+     * @return fluent interface
+     */
+    public synchronized LanguageWatcher stop()
+    {
+        if (this.task != null)
+        {
+            this.task.cancel();
+            this.task = null;
+        }
+        return this;
+    }
+
+    /**
+     * Checks the files and reloads the changed ones
+     */
+    public void run()
+    {
+        boolean reloaded = false;
+        for (Map.Entry<Translation, FileState> entry : this.translations.entrySet())
+        {
+            FileState state = entry.getValue();
+            File file = state.file;
+            long lastModified = file.lastModified();
+            long length = file.length();
+            if (lastModified == state.lastModified && length == state.length)
+            {
+                continue;
+            }
+            state.lastModified = lastModified;
+            state.length = length;
+            try
+            {
+                if (file.isFile())
+                {
+                    entry.getKey().loadOverrides(file);
+                }
+                else
+                {
+                    entry.getKey().clearOverrides();
+                }
+                reloaded = true;
+            }
+            catch (Exception e)
+            {
+                this.plugin.getLogger().log(Level.WARNING, "Failed to load the language file " + file.getPath(), e);
+            }
+        }
+        if (reloaded)
+        {
+            synchronized (this.listeners)
+            {
+                for (Runnable listener : this.listeners)
+                {
+                    listener.run();
+                }
+            }
+        }
+    }
+
+    private static final class FileState
+    {
+        private final File file;
+        private long lastModified;
+        private long length;
+
+        private FileState(File file)
+        {
+            this.file = file;
+            this.lastModified = 0;
+            this.length = 0;
+        }
+    }
+}
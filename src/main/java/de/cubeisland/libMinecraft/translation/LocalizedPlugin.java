@@ -0,0 +1,11 @@
+package de.cubeisland.libMinecraft.translation;
+
+import org.bukkit.command.CommandSender;
+
+/**
+ * Represents a translated plugin which translates messages in the language of each sender
+ */
+public interface LocalizedPlugin extends TranslatablePlugin
+{
+    public Translation getTranslation(CommandSender sender);
+}
@@ -0,0 +1,153 @@
+package de.cubeisland.libMinecraft.translation;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class represents an interned translation key.
+ * Every key gets a dense numeric id once, translations store their messages
+ * in an array indexed by that id. Keep the keys used on hot paths in constants
+ * to skip building and hashing the key string.
+ */
+public final class MessageKey
+{
+    private static final ConcurrentMap<String, MessageKey> KEYS = new ConcurrentHashMap<String, MessageKey>();
+    private static final AtomicInteger NEXT_ID = new AtomicInteger(0);
+    private static volatile MessageKey[] byId = new MessageKey[64];
+
+    private final String name;
+    private final int id;
+    private final String fallback;
+
+    private MessageKey(String name, int id)
+    {
+        this.name = name;
+        this.id = id;
+        this.fallback = "[" + name + "]";
+    }
+
+    /**
+     * Returns the key with the given name, the key gets registered if necessary
+     *
+     * @param name the name of the key (case insensitive)
+     * @return the key
+     */
+    public static MessageKey of(String name)
+    {
+        if (name == null)
+        {
+            throw new IllegalArgumentException("The name must not be null!");
+        }
+        MessageKey key = KEYS.get(name);
+        if (key == null)
+        {
+            name = name.toLowerCase();
+            key = KEYS.get(name);
+            if (key == null)
+            {
+                synchronized (KEYS)
+                {
+                    key = KEYS.get(name);
+                    if (key == null)
+                    {
+                        key = new MessageKey(name, NEXT_ID.getAndIncrement());
+                        MessageKey[] keys = byId;
+                        if (key.id >= keys.length)
+                        {
+                            MessageKey[] newKeys = new MessageKey[keys.length * 2];
+                            System.arraycopy(keys, 0, newKeys, 0, keys.length);
+                            keys = newKeys;
+                        }
+                        keys[key.id] = key;
+                        byId = keys;
+                        KEYS.put(name, key);
+                    }
+                }
+            }
+        }
+        return key;
+    }
+
+    /**
+     * Returns the key with the given name if it is registered
+     *
+     * @param name the name of the key (case insensitive)
+     * @return the key or null
+     */
+    public static MessageKey get(String name)
+    {
+        if (name == null)
+        {
+            return null;
+        }
+        MessageKey key = KEYS.get(name);
+        if (key == null)
+        {
+            key = KEYS.get(name.toLowerCase());
+        }
+        return key;
+    }
+
+    /**
+     * Returns the key with the given id
+     *
+     * @param id the id
+     * @return the key or null if there is no such key
+     */
+    public static MessageKey byId(int id)
+    {
+        final MessageKey[] keys = byId;
+        if (id < 0 || id >= keys.length)
+        {
+            return null;
+        }
+        return keys[id];
+    }
+
+    /**
+     * Returns the number of registered keys, all ids are lower than this
+     *
+     * @return the number of keys
+     */
+    public static int count()
+    {
+        return NEXT_ID.get();
+    }
+
+    /**
+     * Returns the lower case name of the key
+     *
+     * @return the name
+     */
+    public String getName()
+    {
+        return this.name;
+    }
+
+    /**
+     * Returns the numeric id of the key
+     *
+     * @return the id
+     */
+    public int getId()
+    {
+        return this.id;
+    }
+
+    /**
+     * Returns the name of the key in square brackets, used if a message is missing
+     *
+     * @return the fallback string
+     */
+    String getFallback()
+    {
+        return this.fallback;
+    }
+
+    @Override
+    public String toString()
+    {
+        return this.name;
+    }
+}
@@ -0,0 +1,360 @@
+package de.cubeisland.libMinecraft.translation;
+
+import java.text.DecimalFormatSymbols;
+import java.util.ArrayList;
+import java.util.Formattable;
+import java.util.List;
+import java.util.Locale;
+import java.util.MissingFormatArgumentException;
+
+/**
+ * This class represents a message compiled from a format string.
+ * The format string is parsed once into literal segments and argument slots.
+ * Plain %s and %d slots are rendered directly, every other specifier
+ * is rendered with String.format, so the output matches String.format.
+ */
+public final class MessageTemplate
+{
+    private static final byte LITERAL = 0;
+    private static final byte STRING = 1;
+    private static final byte INTEGER = 2;
+    private static final byte FORMAT = 3;
+
+    private static final String FLAGS = "-#+ 0,(<";
+    private static final String CONVERSIONS = "bBhHsScCdoxXeEfgGaA%n";
+    private static final String DATE_CONVERSIONS = "HIklMSLNpzZsQBbhAaCYyjmdeRTrDFc";
+    private static final int MAX_BUILDER_CAPACITY = 4096;
+    private static final ThreadLocal<StringBuilder[]> BUILDER = new ThreadLocal<StringBuilder[]>() {
+        @Override
+        protected StringBuilder[] initialValue()
+        {
+            return new StringBuilder[] {new StringBuilder(128)};
+        }
+    };
+    private static volatile Locale digitLocale = null;
+    private static volatile boolean asciiDigits = true;
+
+    private final String format;
+    private final String constant;
+    private final byte[] kinds;
+    private final String[] texts;
+    private final int[] args;
+
+    private MessageTemplate(String format, String constant, byte[] kinds, String[] texts, int[] args)
+    {
+        this.format = format;
+        this.constant = constant;
+        this.kinds = kinds;
+        this.texts = texts;
+        this.args = args;
+    }
+
+    /**
+     * Compiles the given format string
+     *
+     * @param format the format string
+     * @return the template
+     */
+    public static MessageTemplate compile(String format)
+    {
+        if (format == null)
+        {
+            throw new IllegalArgumentException("The format must not be null!");
+        }
+        List<Byte> kinds = new ArrayList<Byte>();
+        List<String> texts = new ArrayList<String>();
+        List<Integer> args = new ArrayList<Integer>();
+        StringBuilder literal = new StringBuilder();
+        final int length = format.length();
+        int ordinaryIndex = 0;
+        int lastIndex = -1;
+        int i = 0;
+        char c;
+        while (i < length)
+        {
+            c = format.charAt(i++);
+            if (c != '%')
+            {
+                literal.append(c);
+                continue;
+            }
+
+            // %[argument_index$][flags][width][.precision][t]conversion
+            int index = -1;
+            int digitsEnd = i;
+            while (digitsEnd < length && Character.isDigit(format.charAt(digitsEnd)))
+            {
+                ++digitsEnd;
+            }
+            if (digitsEnd > i && digitsEnd < length && format.charAt(digitsEnd) == '$')
+            {
+                try
+                {
+                    index = Integer.parseInt(format.substring(i, digitsEnd)) - 1;
+                }
+                catch (NumberFormatException e)
+                {
+                    // an oversized index, let String.format fail this message only
+                    return fallback(format);
+                }
+                if (index < 0)
+                {
+                    return fallback(format);
+                }
+                i = digitsEnd + 1;
+            }
+            int flagsStart = i;
+            while (i < length && FLAGS.indexOf(format.charAt(i)) >= 0)
+            {
+                ++i;
+            }
+            String flags = format.substring(flagsStart, i);
+            int widthStart = i;
+            while (i < length && Character.isDigit(format.charAt(i)))
+            {
+                ++i;
+            }
+            String width = format.substring(widthStart, i);
+            String precision = "";
+            if (i < length && format.charAt(i) == '.')
+            {
+                int precisionStart = i++;
+                while (i < length && Character.isDigit(format.charAt(i)))
+                {
+                    ++i;
+                }
+                precision = format.substring(precisionStart, i);
+                if (precision.length() == 1)
+                {
+                    return fallback(format);
+                }
+            }
+            if (i >= length)
+            {
+                return fallback(format);
+            }
+            String conversion = String.valueOf(format.charAt(i++));
+            if (conversion.equals("t") || conversion.equals("T"))
+            {
+                if (i >= length || DATE_CONVERSIONS.indexOf(format.charAt(i)) < 0)
+                {
+                    return fallback(format);
+                }
+                conversion += format.charAt(i++);
+            }
+            else if (CONVERSIONS.indexOf(conversion.charAt(0)) < 0)
+            {
+                // let String.format report the unknown conversion
+                return fallback(format);
+            }
+
+            boolean plain = (flags.length() == 0 && width.length() == 0 && precision.length() == 0);
+            if (conversion.equals("%") || conversion.equals("n"))
+            {
+                if (!plain || index >= 0)
+                {
+                    return fallback(format);
+                }
+                literal.append(conversion.equals("%") ? "%" : System.getProperty("line.separator"));
+                continue;
+            }
+
+            if (flags.indexOf('<') >= 0)
+            {
+                if (lastIndex < 0)
+                {
+                    return fallback(format);
+                }
+                index = lastIndex;
+                flags = flags.replace("<", "");
+                plain = (flags.length() == 0 && width.length() == 0 && precision.length() == 0);
+            }
+            else if (index < 0)
+            {
+                index = ordinaryIndex++;
+            }
+            lastIndex = index;
+
+            if (literal.length() > 0)
+            {
+                kinds.add(LITERAL);
+                texts.add(literal.toString());
+                args.add(-1);
+                literal.setLength(0);
+            }
+            if (plain && conversion.equals("s"))
+            {
+                kinds.add(STRING);
+            }
+            else if (plain && conversion.equals("d"))
+            {
+                kinds.add(INTEGER);
+            }
+            else
+            {
+                kinds.add(FORMAT);
+            }
+            texts.add("%" + flags + width + precision + conversion);
+            args.add(index);
+        }
+        if (literal.length() > 0 || kinds.isEmpty())
+        {
+            kinds.add(LITERAL);
+            texts.add(literal.toString());
+            args.add(-1);
+        }
+
+        final int size = kinds.size();
+        byte[] kindArray = new byte[size];
+        int[] argArray = new int[size];
+        for (int j = 0; j < size; ++j)
+        {
+            kindArray[j] = kinds.get(j);
+            argArray[j] = args.get(j);
+        }
+        String constant = null;
+        if (size == 1 && kindArray[0] == LITERAL)
+        {
+            constant = texts.get(0);
+        }
+        return new MessageTemplate(format, constant, kindArray, texts.toArray(new String[size]), argArray);
+    }
+
+    private static MessageTemplate fallback(String format)
+    {
+        return new MessageTemplate(format, null, new byte[] {FORMAT}, new String[] {format}, new int[] {-1});
+    }
+
+    /**
+     * Returns the format string this template got compiled from
+     *
+     * @return the format string
+     */
+    public String getFormat()
+    {
+        return this.format;
+    }
+
+    /**
+     * Checks whether this template renders to the same string regardless of the parameters
+     *
+     * @return true if the template has no argument slots
+     */
+    public boolean isConstant()
+    {
+        return this.constant != null;
+    }
+
+    /**
+     * Renders the template with the given parameters
+     *
+     * @param params the parameters
+     * @return the rendered message
+     */
+    public String render(Object... params)
+    {
+        if (this.constant != null)
+        {
+            return this.constant;
+        }
+        StringBuilder[] holder = BUILDER.get();
+        StringBuilder sb = holder[0];
+        if (sb == null)
+        {
+            // a parameter renders a message while we are rendering
+            sb = new StringBuilder(128);
+        }
+        else
+        {
+            holder[0] = null;
+            sb.setLength(0);
+        }
+        try
+        {
+            this.render(sb, params);
+            return sb.toString();
+        }
+        finally
+        {
+            if (sb.capacity() <= MAX_BUILDER_CAPACITY)
+            {
+                holder[0] = sb;
+            }
+        }
+    }
+
+    /**
+     * Renders the template into the given builder
+     *
+     * @param sb the builder
+     * @param params the parameters
+     */
+    public void render(StringBuilder sb, Object... params)
+    {
+        if (params == null)
+        {
+            params = new Object[0];
+        }
+        final int size = this.kinds.length;
+        Object arg;
+        for (int i = 0; i < size; ++i)
+        {
+            if (this.kinds[i] == LITERAL)
+            {
+                sb.append(this.texts[i]);
+                continue;
+            }
+            if (this.args[i] < 0)
+            {
+                sb.append(String.format(this.texts[i], params));
+                continue;
+            }
+            if (this.args[i] >= params.length)
+            {
+                throw new MissingFormatArgumentException(this.texts[i]);
+            }
+            arg = params[this.args[i]];
+            switch (this.kinds[i])
+            {
+                case STRING:
+                    if (arg == null || arg instanceof String)
+                    {
+                        sb.append((String)arg);
+                        continue;
+                    }
+                    if (!(arg instanceof Formattable))
+                    {
+                        sb.append(arg.toString());
+                        continue;
+                    }
+                    break;
+                case INTEGER:
+                    if ((arg instanceof Integer || arg instanceof Long || arg instanceof Short || arg instanceof Byte) && hasAsciiDigits())
+                    {
+                        sb.append(((Number)arg).longValue());
+                        continue;
+                    }
+                    break;
+                default:
+            }
+            sb.append(String.format(this.texts[i], arg));
+        }
+    }
+
+    private static boolean hasAsciiDigits()
+    {
+        Locale locale = Locale.getDefault();
+        if (locale != digitLocale)
+        {
+            asciiDigits = (new DecimalFormatSymbols(locale).getZeroDigit() == '0');
+            digitLocale = locale;
+        }
+        return asciiDigits;
+    }
+
+    @Override
+    public String toString()
+    {
+        return this.format;
+    }
+}
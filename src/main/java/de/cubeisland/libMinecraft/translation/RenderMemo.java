@@ -0,0 +1,148 @@
+package de.cubeisland.libMinecraft.translation;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class memoizes rendered messages which get requested repeatedly with the same parameters.
+ * The memo is a bounded direct-mapped table: every template and parameter combination
+ * has exactly one slot and a new result simply replaces the previous one.
+ * Only messages with immutable parameters of limited size are memoized.
+ * Entries are immutable, so the table is shared between threads without locking.
+ */
+final class RenderMemo
+{
+    private static final int SIZE = 512;
+    private static final int MASK = SIZE - 1;
+    private static final int MAX_PARAMS = 4;
+    private static final int MAX_STRING_LENGTH = 32;
+
+    private static final Entry[] ENTRIES = new Entry[SIZE];
+    private static final AtomicLong HITS = new AtomicLong(0);
+    private static final AtomicLong MISSES = new AtomicLong(0);
+
+    private RenderMemo()
+    {}
+
+    /**
+     * Renders the given template, using the memoized message if possible
+     *
+     * @param template the template
+     * @param params the parameters
+     * @return the rendered message
+     */
+    public static String render(MessageTemplate template, Object... params)
+    {
+        if (template.isConstant() || !isMemoizable(params))
+        {
+            return template.render(params);
+        }
+        final Locale locale = Locale.getDefault();
+        int hash = System.identityHashCode(template);
+        for (Object param : params)
+        {
+            hash = 31 * hash + param.hashCode();
+        }
+        hash ^= (hash >>> 16);
+        final int slot = hash & MASK;
+
+        Entry entry = ENTRIES[slot];
+        if (entry != null && entry.matches(template, locale, params))
+        {
+            HITS.incrementAndGet();
+            return entry.message;
+        }
+        MISSES.incrementAndGet();
+        String message = template.render(params);
+        ENTRIES[slot] = new Entry(template, locale, params.clone(), message);
+        return message;
+    }
+
+    private static boolean isMemoizable(Object[] params)
+    {
+        if (params == null || params.length == 0 || params.length > MAX_PARAMS)
+        {
+            return false;
+        }
+        for (Object param : params)
+        {
+            if (param instanceof String)
+            {
+                if (((String)param).length() > MAX_STRING_LENGTH)
+                {
+                    return false;
+                }
+            }
+            else if (!(param instanceof Integer || param instanceof Long || param instanceof Short || param instanceof Byte || param instanceof Boolean || param instanceof Character))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the number of messages served from the memo
+     *
+     * @return the number of hits
+     */
+    public static long getHits()
+    {
+        return HITS.get();
+    }
+
+    /**
+     * Returns the number of memoizable messages which had to be rendered
+     *
+     * @return the number of misses
+     */
+    public static long getMisses()
+    {
+        return MISSES.get();
+    }
+
+    /**
+     * Removes all memoized messages and resets the counters
+     */
+    public static void clear()
+    {
+        for (int i = 0; i < SIZE; ++i)
+        {
+            ENTRIES[i] = null;
+        }
+        HITS.set(0);
+        MISSES.set(0);
+    }
+
+    private static final class Entry
+    {
+        private final MessageTemplate template;
+        private final Locale locale;
+        private final Object[] params;
+        private final String message;
+
+        private Entry(MessageTemplate template, Locale locale, Object[] params, String message)
+        {
+            this.template = template;
+            this.locale = locale;
+            this.params = params;
+            this.message = message;
+        }
+
+        private boolean matches(MessageTemplate template, Locale locale, Object[] params)
+        {
+            if (this.template != template || this.locale != locale || this.params.length != params.length)
+            {
+                return false;
+            }
+            for (int i = 0; i < params.length; ++i)
+            {
+                if (this.params[i].getClass() != params[i].getClass() || !this.params[i].equals(params[i]))
+                {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -1,10 +1,16 @@
 package de.cubeisland.libMinecraft.translation;
 
-import de.cubeisland.libMinecraft.ChatColor;
-import de.cubeisland.libMinecraft.StringUtils;
-import gnu.trove.map.hash.THashMap;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.WeakHashMap;
 
 /**
  * Represents a translation loaded from the jar.
@@ -14,10 +20,29 @@ import java.io.InputStream;
 public class Translation
 {
     private String language;
-    private final THashMap<String, String> translations;
+    private final MessageTemplate[] baseTranslations;
+    private volatile MessageTemplate[] translations;
+    private volatile int revision;
+    private final Translation[] chain;
+    private final KeyCounters hits;
+    private final KeyCounters misses;
+    private final Map<String, UnknownKey> unknownKeys;
+    private static final int MAX_UNKNOWN_KEYS = 256;
     private static final String RESOURCE_PATH = "/language/";
-    private static final String RESOURCE_EXT = ".ini";
+    static final String RESOURCE_EXT = ".ini";
+    static final String BUNDLE_EXT = ".lang";
+    private static final Map<ClassLoader, Map<String, Translation>> CACHE = new WeakHashMap<ClassLoader, Map<String, Translation>>();
+    private static volatile int cacheGeneration = 0;
 
+    /**
+     * Loads a translation from the jar of the given class.
+     * A precompiled language bundle (/language/&lt;language&gt;.lang) is preferred
+     * over the language file (/language/&lt;language&gt;.ini).
+     *
+     * @param clazz a class of the jar containing the language files
+     * @param language the language
+     * @throws IOException if the file can't be read
+     */
     public Translation(Class clazz, final String language) throws IOException
     {
         if (clazz == null)
@@ -29,93 +54,604 @@ public class Translation
             throw new IllegalArgumentException("The language must not be null!");
         }
         
-        InputStream is = clazz.getResourceAsStream(RESOURCE_PATH + language + RESOURCE_EXT);
-        if (is == null)
+        InputStream is = clazz.getResourceAsStream(RESOURCE_PATH + language + BUNDLE_EXT);
+        if (is != null)
         {
-            throw new IllegalStateException("Requested language '" + language + "' was not found!");
+            this.baseTranslations = LanguageBundle.read(is);
         }
-        this.translations = new THashMap<String, String>();
-        StringBuilder sb = new StringBuilder();
-        byte[] buffer = new byte[512];
-        int bytesRead;
-
-        while ((bytesRead = is.read(buffer)) > 0)
+        else
         {
-            sb.append(new String(buffer, 0, bytesRead, "UTF-8"));
+            is = clazz.getResourceAsStream(RESOURCE_PATH + language + RESOURCE_EXT);
+            if (is == null)
+            {
+                throw new IllegalStateException("Requested language '" + language + "' was not found!");
+            }
+            this.baseTranslations = LanguageParser.parse(is);
         }
-        is.close();
+        this.translations = this.baseTranslations;
+        this.revision = 0;
+        this.language = language;
+        this.chain = new Translation[] {this};
+        this.hits = new KeyCounters();
+        this.misses = new KeyCounters();
+        this.unknownKeys = createUnknownKeys();
+    }
 
-        translations.clear();
-        int equalsOffset;
-        char firstChar;
-        String key;
-        String message;
-        boolean parseColors;
-        for (String line : StringUtils.explode("\n", sb.toString().trim()))
+    /**
+     * Loads a translation from an external language file or language bundle (*.lang)
+     *
+     * @param file the UTF-8 encoded language file or the bundle
+     * @param language the language
+     * @throws IOException if the file can't be read
+     */
+    public Translation(File file, final String language) throws IOException
+    {
+        if (file == null)
         {
-            if (line.length() == 0)
+            throw new IllegalArgumentException("The file must not be null!");
+        }
+        if (language == null)
+        {
+            throw new IllegalArgumentException("The language must not be null!");
+        }
+        if (file.getName().endsWith(BUNDLE_EXT))
+        {
+            this.baseTranslations = LanguageBundle.read(file);
+        }
+        else
+        {
+            this.baseTranslations = LanguageParser.parse(file);
+        }
+        this.translations = this.baseTranslations;
+        this.revision = 0;
+        this.language = language;
+        this.chain = new Translation[] {this};
+        this.hits = new KeyCounters();
+        this.misses = new KeyCounters();
+        this.unknownKeys = createUnknownKeys();
+    }
+
+    private Translation(String language, Translation[] chain)
+    {
+        this.language = language;
+        this.baseTranslations = null;
+        this.translations = null;
+        this.revision = 0;
+        this.chain = chain;
+        this.hits = null;
+        this.misses = null;
+        this.unknownKeys = null;
+    }
+
+    private static Map<String, UnknownKey> createUnknownKeys()
+    {
+        return new LinkedHashMap<String, UnknownKey>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, UnknownKey> eldest)
             {
-                continue;
+                return this.size() > MAX_UNKNOWN_KEYS;
             }
-            firstChar = line.charAt(0);
-            parseColors = true;
-            if (firstChar == ';' || firstChar == '[')
+        };
+    }
+
+    /**
+     * Creates a translation which uses the messages of the given fallback
+     * for all keys this translation has no message for.
+     * The messages are looked up in both translations on every call,
+     * so overrides loaded into them are visible immediately.
+     * The hits and misses get counted by the translation they belong to.
+     *
+     * @param language the language of the merged translation
+     * @param fallback the fallback
+     * @return the merged translation
+     */
+    public Translation withFallback(String language, Translation fallback)
+    {
+        if (fallback == null)
+        {
+            return new Translation(language, this.chain);
+        }
+        List<Translation> members = new ArrayList<Translation>(this.chain.length + fallback.chain.length);
+        for (Translation member : this.chain)
+        {
+            if (!members.contains(member))
             {
-                continue;
+                members.add(member);
             }
-            equalsOffset = line.indexOf("=");
-            if (equalsOffset < 1)
+        }
+        for (Translation member : fallback.chain)
+        {
+            if (!members.contains(member))
             {
-                continue;
+                members.add(member);
             }
+        }
+        return new Translation(language, members.toArray(new Translation[members.size()]));
+    }
 
-            key = line.substring(0, equalsOffset).trim().toLowerCase();
-            message = line.substring(equalsOffset + 1).trim();
-            if (message.length() > 0 && message.charAt(0) == '@')
-            {
-                message = message.substring(1).trim();
-                parseColors = false;
-            }
-            if (message.length() > 2 && message.charAt(0) == '"' && message.charAt(message.length() - 1) == '"')
+    private static MessageTemplate[] merge(MessageTemplate[] messages, MessageTemplate[] fallback)
+    {
+        MessageTemplate[] merged = new MessageTemplate[Math.max(messages.length, fallback.length)];
+        System.arraycopy(fallback, 0, merged, 0, fallback.length);
+        for (int i = 0; i < messages.length; ++i)
+        {
+            if (messages[i] != null)
             {
-                message = message.substring(1, message.length() - 1);
+                merged[i] = messages[i];
             }
+        }
+        return merged;
+    }
+
+    /**
+     * Loads the messages of the given language file over the messages of this translation.
+     * The file gets parsed first, then the messages get swapped atomically,
+     * so this can be called from any thread while the translation is in use.
+     * Loading overrides again replaces the previous overrides.
+     *
+     * @param file the UTF-8 encoded language file
+     * @throws IOException if the file can't be read
+     */
+    public void loadOverrides(File file) throws IOException
+    {
+        this.checkLoaded();
+        MessageTemplate[] overrides = LanguageParser.parse(file);
+        synchronized (this)
+        {
+            this.translations = merge(overrides, this.baseTranslations);
+            ++this.revision;
+        }
+    }
+
+    /**
+     * Removes the messages loaded by loadOverrides()
+     */
+    public synchronized void clearOverrides()
+    {
+        this.checkLoaded();
+        if (this.translations != this.baseTranslations)
+        {
+            this.translations = this.baseTranslations;
+            ++this.revision;
+        }
+    }
 
-            if (parseColors)
+    private void checkLoaded()
+    {
+        if (this.isMerged())
+        {
+            throw new IllegalStateException("Overrides can't be loaded into a merged translation!");
+        }
+    }
+
+    /**
+     * Checks whether this translation got created by withFallback()
+     *
+     * @return true if this translation is merged
+     */
+    boolean isMerged()
+    {
+        return (this.baseTranslations == null);
+    }
+
+    /**
+     * Returns the revision of the messages, it changes every time the messages
+     * of this translation or one of its fallbacks get swapped
+     *
+     * @return the revision
+     */
+    public int getRevision()
+    {
+        if (this.chain.length == 1)
+        {
+            return this.chain[0].revision;
+        }
+        int revision = 0;
+        for (Translation member : this.chain)
+        {
+            revision += member.revision;
+        }
+        return revision;
+    }
+
+    /**
+     * Checks whether there is a message for the given key
+     *
+     * @param key the key
+     * @return true if there is a message
+     */
+    public boolean hasMessage(MessageKey key)
+    {
+        final int id = key.getId();
+        MessageTemplate[] messages;
+        for (Translation member : this.chain)
+        {
+            messages = member.translations;
+            if (id < messages.length && messages[id] != null)
             {
-                message = ChatColor.translateAlternateColorCodes('&', message);
+                return true;
             }
-            translations.put(key, message);
         }
+        return false;
+    }
 
-        this.language = language;
+    /**
+     * Checks whether the given language exists, without loading it
+     *
+     * @param clazz a class of the jar containing the language files
+     * @param language the language
+     * @return true if the language file exists
+     */
+    public static boolean exists(Class clazz, String language)
+    {
+        if (clazz == null || language == null)
+        {
+            return false;
+        }
+        return clazz.getResource(RESOURCE_PATH + language + BUNDLE_EXT) != null || clazz.getResource(RESOURCE_PATH + language + RESOURCE_EXT) != null;
     }
 
+    /**
+     * Translates the message of the given key.
+     * Keys which are not registered don't get registered, their misses
+     * are tracked for the last 256 distinct keys only.
+     *
+     * @param key the key (case insensitive)
+     * @param params the parameters
+     * @return the translated message or the key in square brackets if there is no message
+     */
     public String translate(String key, Object... params)
     {
-        key = key.toLowerCase();
-        String translation = this.translations.get(key);
+        if (key == null)
+        {
+            throw new IllegalArgumentException("The key must not be null!");
+        }
+        MessageKey messageKey = MessageKey.get(key);
+        if (messageKey == null)
+        {
+            return this.chain[0].unknownKeyMissed(key.toLowerCase());
+        }
+        return this.translate(messageKey, params);
+    }
+
+    /**
+     * Counts a miss of the given unregistered key
+     *
+     * @param name the lower case name of the key
+     * @return the key in square brackets
+     */
+    private String unknownKeyMissed(String name)
+    {
+        synchronized (this.unknownKeys)
+        {
+            UnknownKey key = this.unknownKeys.get(name);
+            if (key == null)
+            {
+                key = new UnknownKey(name);
+                this.unknownKeys.put(name, key);
+            }
+            ++key.misses;
+            return key.fallback;
+        }
+    }
+
+    /**
+     * Translates the message of the given key
+     *
+     * @param key the key
+     * @param params the parameters
+     * @return the translated message or the key in square brackets if there is no message
+     */
+    public String translate(MessageKey key, Object... params)
+    {
+        MessageTemplate translation = this.lookup(key.getId());
         if (translation == null)
         {
-            return "[" + key + "]";
+            return key.getFallback();
         }
         else
         {
-            return String.format(translation, params);
+            return RenderMemo.render(translation, params);
         }
     }
 
+    /**
+     * Looks up the message of the given key id in this translation and its fallbacks
+     * and counts the hit or miss
+     *
+     * @param id the key id
+     * @return the message or null if there is none
+     */
+    private MessageTemplate lookup(int id)
+    {
+        MessageTemplate[] messages;
+        for (Translation member : this.chain)
+        {
+            messages = member.translations;
+            if (id < messages.length && messages[id] != null)
+            {
+                member.hits.increment(id);
+                return messages[id];
+            }
+        }
+        this.chain[0].misses.increment(id);
+        return null;
+    }
+
+    /**
+     * Returns how often the given key got translated.
+     * The statistics of a merged translation are the ones of the translation withFallback() got called on.
+     *
+     * @param key the key
+     * @return the number of translations
+     */
+    public long getHits(MessageKey key)
+    {
+        return this.chain[0].hits.get(key.getId());
+    }
+
+    /**
+     * Returns how often the given key got requested without a message being available
+     *
+     * @param key the key
+     * @return the number of misses
+     */
+    public long getMisses(MessageKey key)
+    {
+        return this.chain[0].misses.get(key.getId());
+    }
+
+    /**
+     * Returns the keys which have a message but never got translated
+     *
+     * @return the sorted key names
+     */
+    public List<String> getUnusedKeys()
+    {
+        final Translation primary = this.chain[0];
+        final MessageTemplate[] messages = primary.translations;
+        List<String> unused = new ArrayList<String>();
+        for (int id = 0; id < messages.length; ++id)
+        {
+            if (messages[id] != null && primary.hits.get(id) == 0)
+            {
+                unused.add(MessageKey.byId(id).getName());
+            }
+        }
+        Collections.sort(unused);
+        return unused;
+    }
+
+    /**
+     * Returns the keys which got requested without a message being available.
+     * Keys which are not registered are included for the last 256 distinct keys only.
+     *
+     * @return the key names mapped to the number of misses, sorted by name
+     */
+    public Map<String, Long> getMissingKeys()
+    {
+        final Translation primary = this.chain[0];
+        final KeyCounters misses = primary.misses;
+        Map<String, Long> missing = new TreeMap<String, Long>();
+        final int size = misses.size();
+        long count;
+        MessageKey key;
+        for (int id = 0; id < size; ++id)
+        {
+            count = misses.get(id);
+            if (count > 0)
+            {
+                key = MessageKey.byId(id);
+                if (key != null)
+                {
+                    missing.put(key.getName(), count);
+                }
+            }
+        }
+        Long registered;
+        synchronized (primary.unknownKeys)
+        {
+            for (UnknownKey unknown : primary.unknownKeys.values())
+            {
+                registered = missing.get(unknown.name);
+                missing.put(unknown.name, registered == null ? unknown.misses : registered + unknown.misses);
+            }
+        }
+        return missing;
+    }
+
+    /**
+     * Resets the hit and miss counters of this translation
+     */
+    public void resetStats()
+    {
+        final Translation primary = this.chain[0];
+        primary.hits.reset();
+        primary.misses.reset();
+        synchronized (primary.unknownKeys)
+        {
+            primary.unknownKeys.clear();
+        }
+    }
+
+    /**
+     * Returns the number of rendered messages served from the memo
+     *
+     * @return the number of hits
+     */
+    public static long getMemoHits()
+    {
+        return RenderMemo.getHits();
+    }
+
+    /**
+     * Returns the number of memoizable messages which had to be rendered
+     *
+     * @return the number of misses
+     */
+    public static long getMemoMisses()
+    {
+        return RenderMemo.getMisses();
+    }
+
+    /**
+     * Returns the fraction of memoizable messages served from the memo
+     *
+     * @return the hit rate between 0 and 1
+     */
+    public static double getMemoHitRate()
+    {
+        long hits = RenderMemo.getHits();
+        long total = hits + RenderMemo.getMisses();
+        return (total == 0 ? 0 : (double)hits / total);
+    }
+
+    /**
+     * Removes all memoized messages and resets the counters
+     */
+    public static void clearMemo()
+    {
+        RenderMemo.clear();
+    }
+
+    /**
+     * Returns the translation of the given language.
+     * Translations are loaded once and shared per class loader, the class loaders
+     * are only weakly referenced so unloaded plugins don't leak.
+     *
+     * @param clazz a class of the jar containing the language files
+     * @param language the language
+     * @return the translation or null if it failed to load
+     */
     public static Translation get(final Class clazz, final String language)
     {
+        if (clazz == null || language == null)
+        {
+            return null;
+        }
+        final ClassLoader loader = clazz.getClassLoader();
+        Map<String, Translation> translations = null;
+        if (loader != null)
+        {
+            synchronized (CACHE)
+            {
+                translations = CACHE.get(loader);
+                if (translations == null)
+                {
+                    translations = new HashMap<String, Translation>();
+                    CACHE.put(loader, translations);
+                }
+                Translation translation = translations.get(language);
+                if (translation != null)
+                {
+                    return translation;
+                }
+            }
+        }
+
+        Translation translation;
         try
         {
-            return new Translation(clazz, language);
+            translation = new Translation(clazz, language);
         }
         catch (Throwable t)
         {
             t.printStackTrace(System.err);
+            return null;
+        }
+
+        if (translations != null)
+        {
+            synchronized (CACHE)
+            {
+                // another thread might have loaded it meanwhile
+                Translation loaded = translations.get(language);
+                if (loaded != null)
+                {
+                    return loaded;
+                }
+                translations.put(language, translation);
+            }
+        }
+        return translation;
+    }
+
+    /**
+     * Returns the translation of the given language if it is in the cache, without loading it
+     *
+     * @param clazz a class of the jar containing the language files
+     * @param language the language
+     * @return the translation or null if it is not cached
+     */
+    static Translation getCached(Class clazz, String language)
+    {
+        if (clazz == null || language == null || clazz.getClassLoader() == null)
+        {
+            return null;
+        }
+        synchronized (CACHE)
+        {
+            Map<String, Translation> translations = CACHE.get(clazz.getClassLoader());
+            if (translations == null)
+            {
+                return null;
+            }
+            return translations.get(language);
         }
-        return null;
+    }
+
+    /**
+     * Loads the given languages on a background thread, so later calls to get() don't block.
+     * This is meant to be called when the plugin gets enabled.
+     *
+     * @param clazz a class of the jar containing the language files
+     * @param languages the languages to load
+     */
+    public static void preload(final Class clazz, final String... languages)
+    {
+        if (clazz == null || languages == null || languages.length == 0)
+        {
+            return;
+        }
+        Thread thread = new Thread(new Runnable() {
+            public void run()
+            {
+                for (String language : languages)
+                {
+                    get(clazz, language);
+                }
+            }
+        }, "Translation-Preload");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+    }
+
+    /**
+     * Removes all cached translations of the class loader of the given class
+     *
+     * @param clazz the class
+     */
+    public static void clearCache(Class clazz)
+    {
+        if (clazz != null && clazz.getClassLoader() != null)
+        {
+            synchronized (CACHE)
+            {
+                CACHE.remove(clazz.getClassLoader());
+                ++cacheGeneration;
+            }
+        }
+    }
+
+    /**
+     * Returns a number which changes every time cached translations get removed
+     *
+     * @return the generation
+     */
+    static int getCacheGeneration()
+    {
+        return cacheGeneration;
     }
 
     /**
@@ -127,4 +663,18 @@ public class Translation
     {
         return this.language;
     }
+
+    private static final class UnknownKey
+    {
+        private final String name;
+        private final String fallback;
+        private long misses;
+
+        private UnknownKey(String name)
+        {
+            this.name = name;
+            this.fallback = "[" + name + "]";
+            this.misses = 0;
+        }
+    }
 }
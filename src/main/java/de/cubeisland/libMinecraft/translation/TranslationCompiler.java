@@ -0,0 +1,119 @@
+package de.cubeisland.libMinecraft.translation;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * This class compiles language files into precompiled language bundles.
+ * It is meant to run at build time of a plugin, the .ini files should stay
+ * in the jar as the fallback.
+ *
+ * Usage: TranslationCompiler &lt;language directory&gt; [output directory]
+ *
+ * A plugin depending on this library can compile its language files
+ * by adding this to the plugins of its pom.xml:
+ * <pre>
+ * &lt;plugin&gt;
+ *     &lt;groupId&gt;org.codehaus.mojo&lt;/groupId&gt;
+ *     &lt;artifactId&gt;exec-maven-plugin&lt;/artifactId&gt;
+ *     &lt;version&gt;1.2.1&lt;/version&gt;
+ *     &lt;executions&gt;
+ *         &lt;execution&gt;
+ *             &lt;id&gt;compile-languages&lt;/id&gt;
+ *             &lt;phase&gt;process-classes&lt;/phase&gt;
+ *             &lt;goals&gt;
+ *                 &lt;goal&gt;java&lt;/goal&gt;
+ *             &lt;/goals&gt;
+ *             &lt;configuration&gt;
+ *                 &lt;mainClass&gt;de.cubeisland.libMinecraft.translation.TranslationCompiler&lt;/mainClass&gt;
+ *                 &lt;arguments&gt;
+ *                     &lt;argument&gt;${project.build.outputDirectory}/language&lt;/argument&gt;
+ *                 &lt;/arguments&gt;
+ *             &lt;/configuration&gt;
+ *         &lt;/execution&gt;
+ *     &lt;/executions&gt;
+ * &lt;/plugin&gt;
+ * </pre>
+ */
+public final class TranslationCompiler
+{
+    private TranslationCompiler()
+    {}
+
+    public static void main(String[] args) throws IOException
+    {
+        if (args.length < 1)
+        {
+            System.err.println("Usage: TranslationCompiler <language directory> [output directory]");
+            System.exit(1);
+        }
+        File source = new File(args[0]);
+        File target = (args.length > 1 ? new File(args[1]) : source);
+        if (!source.isDirectory())
+        {
+            // nothing to compile
+            return;
+        }
+        if (!target.isDirectory() && !target.mkdirs())
+        {
+            throw new IOException("Failed to create the directory " + target.getPath());
+        }
+        int compiled = compileDirectory(source, target);
+        System.out.println("Compiled " + compiled + " language file(s) into " + target.getPath());
+    }
+
+    /**
+     * Compiles all language files of the source directory into the target directory
+     *
+     * @param source the directory containing the language files
+     * @param target the directory to write the bundles to
+     * @return the number of compiled files
+     * @throws IOException if reading or writing fails
+     */
+    public static int compileDirectory(File source, File target) throws IOException
+    {
+        File[] files = source.listFiles(new FileFilter() {
+            public boolean accept(File file)
+            {
+                return file.isFile() && file.getName().endsWith(Translation.RESOURCE_EXT);
+            }
+        });
+        if (files == null)
+        {
+            return 0;
+        }
+        String name;
+        for (File file : files)
+        {
+            name = file.getName();
+            name = name.substring(0, name.length() - Translation.RESOURCE_EXT.length());
+            compile(file, new File(target, name + Translation.BUNDLE_EXT));
+        }
+        return files.length;
+    }
+
+    /**
+     * Compiles the given language file into a bundle
+     *
+     * @param source the language file
+     * @param target the bundle file
+     * @throws IOException if reading or writing fails
+     */
+    public static void compile(File source, File target) throws IOException
+    {
+        MessageTemplate[] messages = LanguageParser.parse(source);
+        OutputStream os = new BufferedOutputStream(new FileOutputStream(target));
+        try
+        {
+            LanguageBundle.write(messages, os);
+        }
+        finally
+        {
+            os.close();
+        }
+    }
+}
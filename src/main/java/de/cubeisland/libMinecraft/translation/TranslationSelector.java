@@ -0,0 +1,418 @@
+package de.cubeisland.libMinecraft.translation;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+
+/**
+ * This class selects the translation matching the locale of a sender.
+ * Locales fall back to their language and then to the default language (de_AT -> de -> en).
+ * The merged translations are kept in a bounded LRU cache and get rebuilt
+ * when the default translation changes or the translation cache got cleared,
+ * the locale of each sender is cached for a while.
+ * Languages which are not in the shared translation cache (see Translation.preload())
+ * get loaded by the selector itself and are held by an LRU cache of the same size,
+ * so rarely used locales don't stay in memory for the lifetime of the class loader.
+ */
+public class TranslationSelector
+{
+    private final Class clazz;
+    private final TranslatablePlugin plugin;
+    private final Map<String, Selection> translations;
+    private final Map<String, Translation> languages;
+    private int languagesGeneration;
+    private final Map<CommandSender, Entry> senders;
+    private final Map<Class<?>, Method> localeMethods;
+    private volatile Translation defaultTranslation;
+    private long ttl;
+
+    /**
+     * Initializes the selector
+     *
+     * @param clazz a class of the jar containing the language files
+     * @param defaultTranslation the translation used if there is no better one
+     * @param maxLanguages the maximum number of cached locales
+     */
+    public TranslationSelector(Class clazz, Translation defaultTranslation, int maxLanguages)
+    {
+        this(clazz, null, defaultTranslation, maxLanguages);
+    }
+
+    /**
+     * Initializes the selector with the translation of the given plugin as the default translation.
+     * The selector follows the plugin, so translations set with setTranslation() get used immediately.
+     *
+     * @param plugin the plugin
+     * @param maxLanguages the maximum number of cached locales
+     */
+    public TranslationSelector(TranslatablePlugin plugin, int maxLanguages)
+    {
+        this(classOf(plugin), plugin, null, maxLanguages);
+    }
+
+    private static Class classOf(TranslatablePlugin plugin)
+    {
+        if (plugin == null)
+        {
+            throw new IllegalArgumentException("The plugin must not be null!");
+        }
+        return plugin.getClass();
+    }
+
+    private TranslationSelector(Class clazz, TranslatablePlugin plugin, Translation defaultTranslation, final int maxLanguages)
+    {
+        if (clazz == null)
+        {
+            throw new IllegalArgumentException("The class must not be null!");
+        }
+        if (plugin == null && defaultTranslation == null)
+        {
+            throw new IllegalArgumentException("The default translation must not be null!");
+        }
+        if (maxLanguages < 1)
+        {
+            throw new IllegalArgumentException("At least 1 language must be cached!");
+        }
+        this.clazz = clazz;
+        this.plugin = plugin;
+        this.defaultTranslation = defaultTranslation;
+        this.translations = new LinkedHashMap<String, Selection>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Selection> eldest)
+            {
+                return this.size() > maxLanguages;
+            }
+        };
+        this.languages = new LinkedHashMap<String, Translation>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Translation> eldest)
+            {
+                return this.size() > maxLanguages;
+            }
+        };
+        this.languagesGeneration = Translation.getCacheGeneration();
+        this.senders = new WeakHashMap<CommandSender, Entry>();
+        this.localeMethods = new HashMap<Class<?>, Method>();
+        this.ttl = 60000;
+    }
+
+    /**
+     * Returns the translation for the given sender
+     *
+     * @param sender the sender
+     * @return the translation
+     */
+    public Translation getTranslation(CommandSender sender)
+    {
+        if (!(sender instanceof Player))
+        {
+            return this.getDefaultTranslation();
+        }
+        final long now = System.currentTimeMillis();
+        synchronized (this.senders)
+        {
+            Entry entry = this.senders.get(sender);
+            if (entry != null && now - entry.created <= this.ttl)
+            {
+                return this.getTranslation(entry.locale);
+            }
+        }
+        final String locale = this.getLocale(sender);
+        synchronized (this.senders)
+        {
+            this.senders.put(sender, new Entry(locale, now));
+        }
+        return this.getTranslation(locale);
+    }
+
+    /**
+     * Returns the translation for the given locale
+     *
+     * @param locale the locale or null
+     * @return the translation
+     */
+    public Translation getTranslation(String locale)
+    {
+        final Translation defaultTranslation = this.getDefaultTranslation();
+        if (locale == null || locale.length() == 0)
+        {
+            return defaultTranslation;
+        }
+        final int generation = Translation.getCacheGeneration();
+        synchronized (this.translations)
+        {
+            Selection selection = this.translations.get(locale);
+            if (selection != null && selection.defaultTranslation == defaultTranslation && selection.generation == generation)
+            {
+                return selection.translation;
+            }
+        }
+
+        Translation translation = defaultTranslation;
+        List<String> chain = getFallbackChain(locale);
+        Translation candidate;
+        for (int i = chain.size() - 1; i >= 0; --i)
+        {
+            if (chain.get(i).equals(defaultTranslation.getLanguage()) || !Translation.exists(this.clazz, chain.get(i)))
+            {
+                continue;
+            }
+            candidate = this.getLanguage(chain.get(i), generation);
+            if (candidate != null)
+            {
+                translation = candidate.withFallback(candidate.getLanguage(), translation);
+            }
+        }
+        synchronized (this.translations)
+        {
+            this.translations.put(locale, new Selection(translation, defaultTranslation, generation));
+        }
+        return translation;
+    }
+
+    /**
+     * Returns the translation of a single language.
+     * Translations from the shared cache are used as they are, all others get loaded
+     * into the LRU cache of this selector instead of the shared cache.
+     *
+     * @param language the language
+     * @param generation the current cache generation
+     * @return the translation or null if it failed to load
+     */
+    private Translation getLanguage(String language, int generation)
+    {
+        Translation translation = Translation.getCached(this.clazz, language);
+        if (translation != null)
+        {
+            return translation;
+        }
+        synchronized (this.translations)
+        {
+            if (this.languagesGeneration != generation)
+            {
+                this.languages.clear();
+                this.languagesGeneration = generation;
+            }
+            translation = this.languages.get(language);
+            if (translation != null)
+            {
+                return translation;
+            }
+        }
+        try
+        {
+            translation = new Translation(this.clazz, language);
+        }
+        catch (Throwable t)
+        {
+            t.printStackTrace(System.err);
+            return null;
+        }
+        synchronized (this.translations)
+        {
+            if (this.languagesGeneration == generation)
+            {
+                this.languages.put(language, translation);
+            }
+        }
+        return translation;
+    }
+
+    /**
+     * Returns the number of languages loaded by this selector
+     *
+     * @return the number of languages
+     */
+    int getLoadedLanguageCount()
+    {
+        synchronized (this.translations)
+        {
+            return this.languages.size();
+        }
+    }
+
+    /**
+     * Returns the languages to look up for the given locale, the most specific first
+     *
+     * @param locale the locale
+     * @return the languages
+     */
+    protected static List<String> getFallbackChain(String locale)
+    {
+        List<String> chain = new ArrayList<String>(3);
+        locale = locale.replace('-', '_');
+        chain.add(locale);
+        int separator = locale.indexOf('_');
+        if (separator > 0)
+        {
+            String normalized = locale.substring(0, separator).toLowerCase() + locale.substring(separator).toUpperCase();
+            if (!chain.contains(normalized))
+            {
+                chain.add(normalized);
+            }
+            String language = locale.substring(0, separator).toLowerCase();
+            if (!chain.contains(language))
+            {
+                chain.add(language);
+            }
+        }
+        return chain;
+    }
+
+    /**
+     * Returns the locale of the given sender.
+     * The default implementation uses Player.getLocale() if the server provides it.
+     *
+     * @param sender the sender
+     * @return the locale or null if it is unknown
+     */
+    protected String getLocale(CommandSender sender)
+    {
+        Method method;
+        synchronized (this.localeMethods)
+        {
+            Class<?> senderClass = sender.getClass();
+            if (this.localeMethods.containsKey(senderClass))
+            {
+                method = this.localeMethods.get(senderClass);
+            }
+            else
+            {
+                try
+                {
+                    method = senderClass.getMethod("getLocale");
+                    if (method.getReturnType() != String.class)
+                    {
+                        method = null;
+                    }
+                }
+                catch (NoSuchMethodException e)
+                {
+                    method = null;
+                }
+                this.localeMethods.put(senderClass, method);
+            }
+        }
+        if (method != null)
+        {
+            try
+            {
+                return (String)method.invoke(sender);
+            }
+            catch (Exception e)
+            {}
+        }
+        return null;
+    }
+
+    /**
+     * Sets the translation used if there is no better one.
+     * If the selector follows a plugin, the translation of the plugin gets set.
+     *
+     * @param translation the translation
+     */
+    public void setDefaultTranslation(Translation translation)
+    {
+        if (translation == null)
+        {
+            throw new IllegalArgumentException("The default translation must not be null!");
+        }
+        if (this.plugin != null)
+        {
+            this.plugin.setTranslation(translation);
+        }
+        else
+        {
+            this.defaultTranslation = translation;
+        }
+    }
+
+    public Translation getDefaultTranslation()
+    {
+        if (this.plugin != null)
+        {
+            Translation translation = this.plugin.getTranslation();
+            if (translation == null)
+            {
+                throw new IllegalStateException("The plugin has no translation!");
+            }
+            return translation;
+        }
+        return this.defaultTranslation;
+    }
+
+    /**
+     * Sets the time the translation of a sender stays cached
+     *
+     * @param ttl the time in milliseconds
+     */
+    public void setTtl(long ttl)
+    {
+        if (ttl < 0)
+        {
+            throw new IllegalArgumentException("The TTL must not be negative!");
+        }
+        this.ttl = ttl;
+    }
+
+    /**
+     * Forgets the cached locale of the given sender, for example when the sender changed the locale
+     *
+     * @param sender the sender
+     */
+    public void invalidate(CommandSender sender)
+    {
+        synchronized (this.senders)
+        {
+            this.senders.remove(sender);
+        }
+    }
+
+    /**
+     * Clears all cached translations
+     */
+    public void clear()
+    {
+        synchronized (this.translations)
+        {
+            this.translations.clear();
+            this.languages.clear();
+        }
+        synchronized (this.senders)
+        {
+            this.senders.clear();
+        }
+    }
+
+    private static final class Entry
+    {
+        private final String locale;
+        private final long created;
+
+        private Entry(String locale, long created)
+        {
+            this.locale = locale;
+            this.created = created;
+        }
+    }
+
+    private static final class Selection
+    {
+        private final Translation translation;
+        private final Translation defaultTranslation;
+        private final int generation;
+
+        private Selection(Translation translation, Translation defaultTranslation, int generation)
+        {
+            this.translation = translation;
+            this.defaultTranslation = defaultTranslation;
+            this.generation = generation;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package de.cubeisland.libMinecraft;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import static de.cubeisland.libMinecraft.ChatColorTest.legacyStripColors;
+import static de.cubeisland.libMinecraft.ChatColorTest.legacyTranslateAlternateColorCodes;
+
+/**
+ * Compares the color code handling with the regex and indexOf based implementations it replaced
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ChatColorBenchmark
+{
+    @Param({"plain", "colored"})
+    public String text;
+
+    private String alternate;
+    private String translated;
+
+    @Setup
+    public void setUp()
+    {
+        if ("plain".equals(this.text))
+        {
+            this.alternate = "Welcome to the server, please read the rules & have fun!";
+        }
+        else
+        {
+            this.alternate = "&aWelcome to &6&lthe server&r&a, please read the &c&nrules&r&a & have fun!";
+        }
+        this.translated = ChatColor.translateAlternateColorCodes('&', this.alternate);
+    }
+
+    @Benchmark
+    public String legacyStrip()
+    {
+        return legacyStripColors(this.translated);
+    }
+
+    @Benchmark
+    public String strip()
+    {
+        return ChatColor.stripColors(this.translated);
+    }
+
+    @Benchmark
+    public String legacyTranslate()
+    {
+        return legacyTranslateAlternateColorCodes('&', this.alternate);
+    }
+
+    @Benchmark
+    public String translate()
+    {
+        return ChatColor.translateAlternateColorCodes('&', this.alternate);
+    }
+}
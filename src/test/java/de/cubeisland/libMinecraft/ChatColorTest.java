@@ -0,0 +1,123 @@
+package de.cubeisland.libMinecraft;
+
+import java.util.Random;
+import java.util.regex.Pattern;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Compares the color code handling with the regex and indexOf based implementations it replaced
+ */
+public class ChatColorTest
+{
+    private static final String CHARS = "0123456789AaBbCcDdEeFfKkLlMmNnOoRr";
+    private static final Pattern STRIP_COLOR_PATTERN = Pattern.compile(ChatColor.COLOR_CHAR + "[" + CHARS + "]");
+
+    static String legacyStripColors(String string)
+    {
+        if (string == null)
+        {
+            return null;
+        }
+        return STRIP_COLOR_PATTERN.matcher(string).replaceAll("");
+    }
+
+    static String legacyTranslateAlternateColorCodes(char colorChar, String text)
+    {
+        char[] chars = text.toCharArray();
+        for (int i = 0; i < chars.length - 1; i++)
+        {
+            if ((chars[i] != colorChar) || (CHARS.indexOf(chars[(i + 1)]) <= -1))
+            {
+                continue;
+            }
+            chars[i] = ChatColor.COLOR_CHAR;
+            i++;
+        }
+        return new String(chars);
+    }
+
+    private static void assertLikeLegacy(String text)
+    {
+        assertEquals(text, legacyStripColors(text), ChatColor.stripColors(text));
+        assertEquals(text, legacyTranslateAlternateColorCodes('&', text), ChatColor.translateAlternateColorCodes('&', text));
+        assertEquals(text, legacyTranslateAlternateColorCodes(ChatColor.COLOR_CHAR, text), ChatColor.translateAlternateColorCodes(ChatColor.COLOR_CHAR, text));
+    }
+
+    @Test
+    public void testStripColors()
+    {
+        final char c = ChatColor.COLOR_CHAR;
+        assertNull(ChatColor.stripColors(null));
+        assertEquals("", ChatColor.stripColors(""));
+        assertEquals("red bold", ChatColor.stripColors(c + "cred " + c + "Lbold"));
+        assertEquals("" + c, ChatColor.stripColors("" + c + c + "a"));
+        assertEquals(c + "x" + c, ChatColor.stripColors(c + "x" + c));
+        assertEquals("", ChatColor.stripColors(c + "a" + c + "b"));
+
+        assertLikeLegacy(c + "cred " + c + "Lbold");
+        assertLikeLegacy("" + c + c + "a" + c);
+        assertLikeLegacy(c + "x" + c + "z" + c + "g" + c + "R");
+    }
+
+    @Test
+    public void testTranslateAlternateColorCodes()
+    {
+        final char c = ChatColor.COLOR_CHAR;
+        assertEquals(c + "aGreen " + c + "Lbold", ChatColor.translateAlternateColorCodes('&', "&aGreen &Lbold"));
+        assertEquals("&&" + c + "a", ChatColor.translateAlternateColorCodes('&', "&&&a"));
+        assertEquals("&z & &", ChatColor.translateAlternateColorCodes('&', "&z & &"));
+
+        assertLikeLegacy("&aGreen &Lbold");
+        assertLikeLegacy("&&&a&");
+        assertLikeLegacy("&z & & &g &R");
+        assertLikeLegacy("");
+        assertLikeLegacy("&");
+    }
+
+    @Test
+    public void testUnchangedStringsAreReturned()
+    {
+        String plain = "no color codes & no " + ChatColor.COLOR_CHAR + "x codes";
+        assertSame(plain, ChatColor.stripColors(plain));
+        assertSame(plain, ChatColor.translateAlternateColorCodes('&', plain));
+        String empty = "";
+        assertSame(empty, ChatColor.stripColors(empty));
+        assertSame(empty, ChatColor.translateAlternateColorCodes('&', empty));
+    }
+
+    @Test
+    public void testLookups()
+    {
+        for (ChatColor color : ChatColor.values())
+        {
+            assertSame(color, ChatColor.getByCharacter(color.getChar()));
+            assertSame(color, ChatColor.getByCharacter(Character.toUpperCase(color.getChar())));
+            assertSame(color, ChatColor.getByCode(color.getCode()));
+            assertSame(color, ChatColor.getByCode((int)color.getCode()));
+        }
+        assertNull(ChatColor.getByCharacter('g'));
+        assertNull(ChatColor.getByCharacter('\u00E4'));
+        assertNull(ChatColor.getByCode(-1));
+        assertNull(ChatColor.getByCode(ChatColor.values().length));
+    }
+
+    @Test
+    public void testRandomStrings()
+    {
+        final char[] chars = {'&', '&', ChatColor.COLOR_CHAR, ChatColor.COLOR_CHAR, 'a', 'A', 'f', 'k', 'r', 'R', 'g', 'z', '0', '9', ' ', '\u00E4', '\u0100'};
+        Random random = new Random(42);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 100000; ++i)
+        {
+            sb.setLength(0);
+            int length = random.nextInt(16);
+            for (int j = 0; j < length; ++j)
+            {
+                sb.append(chars[random.nextInt(chars.length)]);
+            }
+            assertLikeLegacy(sb.toString());
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package de.cubeisland.libMinecraft;
+
+import java.util.Random;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the line wrapping of color coded text
+ */
+public class ChatFormatterTest
+{
+    private static final char C = ChatColor.COLOR_CHAR;
+
+    private static String randomText(Random random)
+    {
+        final String glyphs = "il.,|tI[]fk()@~WMabcdexyz";
+        StringBuilder sb = new StringBuilder();
+        int length = random.nextInt(80);
+        for (int i = 0; i < length; ++i)
+        {
+            int r = random.nextInt(10);
+            if (r == 0)
+            {
+                sb.append(' ');
+            }
+            else if (r == 1)
+            {
+                sb.append(C).append(random.nextBoolean() ? 'l' : 'r');
+            }
+            else
+            {
+                sb.append(glyphs.charAt(random.nextInt(glyphs.length())));
+            }
+        }
+        return sb.toString();
+    }
+
+    @Test
+    public void testCharacterWrapping()
+    {
+        assertArrayEquals(new String[] {"hello", "world"}, ChatFormatter.wrap("hello world", 7));
+        assertArrayEquals(new String[] {"abc", "def"}, ChatFormatter.wrap("abcdef", 3));
+        assertArrayEquals(new String[] {C + "ahello", C + "aworld"}, ChatFormatter.wrap(C + "ahello world", 7));
+    }
+
+    @Test
+    public void testLeadingSpaces()
+    {
+        // the leading space used to end up as an empty first line
+        assertArrayEquals(new String[] {"abc", "def"}, ChatFormatter.wrap(" abcdef", 3));
+        assertArrayEquals(new String[] {"abc", "def"}, ChatFormatter.wrap("   abcdef", 3));
+        assertArrayEquals(new String[] {"abc", "def"}, ChatFormatter.wrap("abc   def", 3));
+        assertArrayEquals(new String[] {C + "aabc", C + "adef"}, ChatFormatter.wrap(C + "a abc def", 3));
+        // neither do trailing spaces start another line
+        assertArrayEquals(new String[] {"abc"}, ChatFormatter.wrap("abc   ", 3));
+        assertArrayEquals(new String[] {"abc", ""}, ChatFormatter.wrap("abc\n", 3));
+    }
+
+    @Test
+    public void testPixelWrapping()
+    {
+        // the @ used to be appended behind the word moved to the new line without checking the width
+        String[] lines = ChatFormatter.wrapPixels(". (.]@b", 17);
+        assertArrayEquals(new String[] {".", "(.]", "@b"}, lines);
+        for (String line : lines)
+        {
+            assertTrue(line, ChatFormatter.getWidth(line) <= 17);
+        }
+        assertArrayEquals(new String[] {"WW", "WW"}, ChatFormatter.wrapPixels("WWWW", 12));
+    }
+
+    @Test
+    public void testRandomWrapping()
+    {
+        final Random random = new Random(42);
+        for (int n = 0; n < 5000; ++n)
+        {
+            String text = randomText(random);
+            int maxWidth = 8 + random.nextInt(60);
+            for (String line : ChatFormatter.wrapPixels(text, maxWidth))
+            {
+                String plain = ChatColor.stripColors(line);
+                if (text.trim().length() > 0)
+                {
+                    assertTrue(text + " -> [" + line + "]", plain.length() > 0 || ChatColor.stripColors(text).trim().length() == 0);
+                }
+                assertFalse(text + " -> [" + line + "]", plain.startsWith(" "));
+                assertTrue(text + " -> [" + line + "]", plain.length() <= 1 || ChatFormatter.getWidth(line) <= maxWidth);
+            }
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package de.cubeisland.libMinecraft;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares the char delimited explode variants with the String delimited explode and String.split
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class StringUtilsBenchmark
+{
+    @Param({"5", "100"})
+    public int parts;
+
+    private String string;
+    private String[] array;
+
+    @Setup
+    public void setUp()
+    {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < this.parts; ++i)
+        {
+            if (i > 0)
+            {
+                sb.append(',');
+            }
+            sb.append("part").append(i);
+        }
+        this.string = sb.toString();
+        this.array = new String[this.parts];
+    }
+
+    @Benchmark
+    public String[] explodeString()
+    {
+        return StringUtils.explode(",", this.string);
+    }
+
+    @Benchmark
+    public String[] split()
+    {
+        return this.string.split(",");
+    }
+
+    @Benchmark
+    public String[] explodeChar()
+    {
+        return StringUtils.explode(',', this.string);
+    }
+
+    @Benchmark
+    public int explodeIntoArray()
+    {
+        return StringUtils.explode(',', this.string, this.array);
+    }
+
+    @Benchmark
+    public int explodeHandler(final Blackhole blackhole)
+    {
+        return StringUtils.explode(',', this.string, new StringUtils.PartHandler() {
+            public boolean handle(CharSequence part)
+            {
+                blackhole.consume(part.length());
+                return true;
+            }
+        });
+    }
+
+    @Benchmark
+    public void splitLazily(Blackhole blackhole)
+    {
+        for (CharSequence part : StringUtils.split(',', this.string))
+        {
+            blackhole.consume(part.length());
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package de.cubeisland.libMinecraft;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Compares the char delimited explode variants with the String delimited explode and String.split
+ */
+public class StringUtilsTest
+{
+    private static final String[] CASES = {"", ",", ",,", "a", "a,b", ",a", "a,", ",a,,b,", "a b, c ,d", "\u00E4,\u20AC,,"};
+
+    private static List<String> handled(String string)
+    {
+        final List<String> parts = new ArrayList<String>();
+        int count = StringUtils.explode(',', string, new StringUtils.PartHandler() {
+            public boolean handle(CharSequence part)
+            {
+                parts.add(part.toString());
+                return true;
+            }
+        });
+        assertEquals(string, parts.size(), count);
+        return parts;
+    }
+
+    private static List<String> iterated(String string)
+    {
+        List<String> parts = new ArrayList<String>();
+        for (CharSequence part : StringUtils.split(',', string))
+        {
+            parts.add(part.toString());
+        }
+        return parts;
+    }
+
+    private static void assertExplodesLikeString(String string)
+    {
+        String[] expected = StringUtils.explode(",", string);
+        assertArrayEquals(expected, StringUtils.explode(',', string));
+        assertArrayEquals(expected, StringUtils.explode(',', string, true));
+        assertArrayEquals(StringUtils.explode(",", string, false), StringUtils.explode(',', string, false));
+        assertEquals(string, Arrays.asList(expected), handled(string));
+        assertEquals(string, Arrays.asList(expected), iterated(string));
+
+        String[] parts;
+        int count;
+        for (int limit = 1; limit <= expected.length + 1; ++limit)
+        {
+            parts = new String[limit];
+            count = StringUtils.explode(',', string, parts);
+            assertArrayEquals(string.split(",", limit), Arrays.copyOf(parts, count));
+        }
+    }
+
+    @Test
+    public void testNamedCases()
+    {
+        for (String string : CASES)
+        {
+            assertExplodesLikeString(string);
+        }
+        assertArrayEquals(new String[] {"", "a", "", "b", ""}, StringUtils.explode(',', ",a,,b,"));
+        assertArrayEquals(new String[] {"a", "b"}, StringUtils.explode(',', ",a,,b,", false));
+        assertArrayEquals(new String[0], StringUtils.explode(',', ",,", false));
+    }
+
+    @Test
+    public void testIntoArray()
+    {
+        String[] parts = new String[3];
+        assertEquals(3, StringUtils.explode(',', "a,b,c,d", parts));
+        assertArrayEquals(new String[] {"a", "b", "c,d"}, parts);
+        assertEquals(2, StringUtils.explode(',', "x,y", parts));
+        assertEquals("x", parts[0]);
+        assertEquals("y", parts[1]);
+        assertEquals(0, StringUtils.explode(',', "a,b", new String[0]));
+    }
+
+    @Test
+    public void testHandlerStops()
+    {
+        final List<String> parts = new ArrayList<String>();
+        int count = StringUtils.explode(',', new StringBuilder("a,b,c,d"), new StringUtils.PartHandler() {
+            public boolean handle(CharSequence part)
+            {
+                parts.add(part.toString());
+                return parts.size() < 2;
+            }
+        });
+        assertEquals(2, count);
+        assertEquals(Arrays.asList("a", "b"), parts);
+    }
+
+    @Test
+    public void testSlices()
+    {
+        Iterator<CharSequence> iterator = StringUtils.split(',', "ab,cde").iterator();
+        CharSequence first = iterator.next();
+        CharSequence second = iterator.next();
+        assertFalse(iterator.hasNext());
+        assertEquals(2, first.length());
+        assertEquals('b', first.charAt(1));
+        assertEquals("cde", second.toString());
+        assertEquals("d", second.subSequence(1, 2).toString());
+        assertEquals("", second.subSequence(3, 3).toString());
+        try
+        {
+            first.charAt(2);
+            fail("Expected an IndexOutOfBoundsException");
+        }
+        catch (IndexOutOfBoundsException e)
+        {}
+        try
+        {
+            second.subSequence(2, 4);
+            fail("Expected an IndexOutOfBoundsException");
+        }
+        catch (IndexOutOfBoundsException e)
+        {}
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void testIteratorEnd()
+    {
+        Iterator<CharSequence> iterator = StringUtils.split(',', "a").iterator();
+        iterator.next();
+        iterator.next();
+    }
+
+    @Test
+    public void testRandomStrings()
+    {
+        final char[] chars = {',', ',', 'a', 'b', ' '};
+        Random random = new Random(42);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 20000; ++i)
+        {
+            sb.setLength(0);
+            int length = random.nextInt(12);
+            for (int j = 0; j < length; ++j)
+            {
+                sb.append(chars[random.nextInt(chars.length)]);
+            }
+            assertExplodesLikeString(sb.toString());
+        }
+    }
+}
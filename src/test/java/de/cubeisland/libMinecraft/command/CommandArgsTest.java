@@ -0,0 +1,215 @@
+package de.cubeisland.libMinecraft.command;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Compares the single pass tokenizer with the previous implementation
+ */
+public class CommandArgsTest
+{
+    private static CommandArgs parse(String... args)
+    {
+        return new CommandArgs(null, "base", null, args);
+    }
+
+    private static void assertParsed(String[] args, String[] params, String... flags)
+    {
+        CommandArgs commandArgs = parse(args);
+        assertEquals(Arrays.asList(params), commandArgs.getParams());
+        assertEquals(new HashSet<String>(Arrays.asList(flags)), commandArgs.getFlags());
+        assertEquals(params.length, commandArgs.size());
+        assertEquals(params.length == 0, commandArgs.isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNoArguments()
+    {
+        parse();
+    }
+
+    @Test
+    public void testLabelOnly()
+    {
+        CommandArgs args = parse("label");
+        assertEquals("label", args.getLabel());
+        assertTrue(args.isEmpty());
+        assertTrue(args.getFlags().isEmpty());
+    }
+
+    @Test
+    public void testPlainParams()
+    {
+        assertParsed(new String[] {"l", "a", "b", "c"}, new String[] {"a", "b", "c"});
+    }
+
+    @Test
+    public void testEmptyArguments()
+    {
+        // the previous implementation failed with a StringIndexOutOfBoundsException here
+        assertParsed(new String[] {"l", "", "a", ""}, new String[] {"a"});
+        assertParsed(new String[] {"l", "\"a", "", "b\""}, new String[] {"a  b"});
+        assertParsed(new String[] {"l", "\"a", ""}, new String[] {"a "});
+    }
+
+    @Test
+    public void testQuotes()
+    {
+        assertParsed(new String[] {"l", "\"a", "b\"", "c"}, new String[] {"a b", "c"});
+        assertParsed(new String[] {"l", "'a", "b'"}, new String[] {"a b"});
+        assertParsed(new String[] {"l", "'a", "\"b", "c'"}, new String[] {"a \"b c"});
+        assertParsed(new String[] {"l", "\"a", "\""}, new String[] {"a"});
+    }
+
+    @Test
+    public void testUnterminatedQuotes()
+    {
+        assertParsed(new String[] {"l", "\"a", "b"}, new String[] {"a b"});
+        assertParsed(new String[] {"l", "\"a"}, new String[] {"a"});
+        assertParsed(new String[] {"l", "\""}, new String[] {""});
+    }
+
+    @Test
+    public void testQuoteThenText()
+    {
+        assertParsed(new String[] {"l", "\"a", "b\"c"}, new String[] {"a b", "c"});
+        assertParsed(new String[] {"l", "\"a", "\"c"}, new String[] {"a", "c"});
+        assertParsed(new String[] {"l", "a\"b", "c"}, new String[] {"a\"b", "c"});
+    }
+
+    @Test
+    public void testFlags()
+    {
+        assertParsed(new String[] {"l", "-a", "b", "-Reset"}, new String[] {"b"}, "a", "Reset");
+        assertParsed(new String[] {"l", "\"-a", "-b\""}, new String[] {"-a -b"});
+    }
+
+    @Test
+    public void testNonFlags()
+    {
+        assertParsed(new String[] {"l", "-"}, new String[] {"-"});
+        assertParsed(new String[] {"l", "--a"}, new String[] {"--a"});
+        assertParsed(new String[] {"l", "-1"}, new String[] {"-1"});
+        assertParsed(new String[] {"l", "-a1"}, new String[] {"-a1"});
+        assertParsed(new String[] {"l", "-ä"}, new String[] {"-ä"});
+    }
+
+    @Test
+    public void testRandomArgumentsMatchPreviousImplementation()
+    {
+        final String alphabet = "ab-'\" 1";
+        final Random random = new Random(42);
+        String[] args;
+        StringBuilder sb = new StringBuilder();
+        for (int n = 0; n < 100000; ++n)
+        {
+            args = new String[1 + random.nextInt(6)];
+            args[0] = "l";
+            for (int i = 1; i < args.length; ++i)
+            {
+                sb.setLength(0);
+                int length = 1 + random.nextInt(4);
+                for (int j = 0; j < length; ++j)
+                {
+                    sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+                }
+                args[i] = sb.toString();
+            }
+            List<String> params = new ArrayList<String>();
+            Set<String> flags = new HashSet<String>();
+            legacyParse(args, params, flags);
+
+            CommandArgs commandArgs = parse(args);
+            assertEquals(Arrays.toString(args), params, commandArgs.getParams());
+            assertEquals(Arrays.toString(args), flags, commandArgs.getFlags());
+        }
+    }
+
+    /**
+     * The tokenizer as it was before the single pass implementation (for non-empty arguments)
+     */
+    private static void legacyParse(String[] args, List<String> params, Set<String> flags)
+    {
+        char firstChar;
+        char quoteChar = '\0';
+        int length;
+        StringBuilder quotedArgBuilder = null;
+
+        for (int i = 1; i < args.length; ++i)
+        {
+            firstChar = args[i].charAt(0);
+            length = args[i].length();
+
+            switch (firstChar)
+            {
+                case '\'':
+                case '"':
+                    if (quotedArgBuilder == null)
+                    {
+                        if (i + 1 >= args.length)
+                        {
+                            params.add(args[i].substring(1));
+                        }
+                        else
+                        {
+                            quoteChar = firstChar;
+                            quotedArgBuilder = new StringBuilder(args[i].substring(1));
+                        }
+                        break;
+                    }
+                case '-':
+                    if (quotedArgBuilder == null && args[i].matches("^\\-[A-Za-z]+$"))
+                    {
+                        flags.add(args[i].substring(1));
+                        break;
+                    }
+                default:
+                    if (quotedArgBuilder == null)
+                    {
+                        params.add(args[i]);
+                    }
+                    else
+                    {
+                        int quoteOffset = args[i].indexOf(quoteChar);
+                        if (quoteOffset >= 0)
+                        {
+                            String before = args[i].substring(0, quoteOffset);
+                            String after = "";
+                            if (quoteOffset + 1 < length)
+                            {
+                                after = args[i].substring(quoteOffset + 1);
+                            }
+
+                            if (before.length() > 0)
+                            {
+                                quotedArgBuilder.append(' ').append(before);
+                            }
+                            params.add(quotedArgBuilder.toString());
+                            quotedArgBuilder = null;
+
+                            if (after.length() > 0)
+                            {
+                                params.add(after);
+                            }
+                        }
+                        else
+                        {
+                            quotedArgBuilder.append(' ').append(args[i]);
+                            if (i + 1 >= args.length)
+                            {
+                                params.add(quotedArgBuilder.toString());
+                                quotedArgBuilder = null;
+                            }
+                        }
+                    }
+            }
+        }
+    }
+}
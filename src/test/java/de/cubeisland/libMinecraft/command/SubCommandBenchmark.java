@@ -0,0 +1,61 @@
+package de.cubeisland.libMinecraft.command;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+import org.bukkit.command.CommandSender;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Compares the bound invokers with the Method.invoke() dispatch execute() used before
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SubCommandBenchmark
+{
+    private Commands commands;
+    private CommandArgs args;
+    private Method method;
+    private SubCommand subCommand;
+
+    @Setup
+    public void setUp() throws NoSuchMethodException
+    {
+        this.commands = new Commands();
+        this.args = new CommandArgs(null, "base", null, new String[] {"label", "a"});
+        this.method = Commands.class.getMethod("command", CommandSender.class, CommandArgs.class);
+        this.method.setAccessible(true);
+        this.subCommand = new SubCommand(this.commands, this.method, "command", new String[0], null, false, "");
+    }
+
+    @Benchmark
+    public boolean reflective() throws Exception
+    {
+        Object result = this.method.invoke(this.commands, null, this.args);
+        if (result instanceof Boolean)
+        {
+            return ((Boolean)result).booleanValue();
+        }
+        return true;
+    }
+
+    @Benchmark
+    public boolean bound() throws Throwable
+    {
+        return this.subCommand.execute(null, this.args);
+    }
+
+    public static class Commands
+    {
+        public boolean command(CommandSender sender, CommandArgs args)
+        {
+            return !args.isEmpty();
+        }
+    }
+}
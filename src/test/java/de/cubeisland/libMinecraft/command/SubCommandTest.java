@@ -0,0 +1,197 @@
+package de.cubeisland.libMinecraft.command;
+
+import java.io.IOException;
+import org.bukkit.command.CommandSender;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that the bound invokers behave like the previous reflective execute()
+ */
+public class SubCommandTest
+{
+    private static SubCommand subCommand(Object container, String name)
+    {
+        Class<?> clazz = container instanceof Class ? (Class<?>)container : container.getClass();
+        for (Class<?> c = clazz; c != null; c = c.getSuperclass())
+        {
+            try
+            {
+                return new SubCommand(container, c.getDeclaredMethod(name, CommandSender.class, CommandArgs.class), name, new String[0], null, false, "");
+            }
+            catch (NoSuchMethodException e)
+            {}
+        }
+        throw new IllegalArgumentException(name);
+    }
+
+    private static boolean execute(Object container, String name) throws Throwable
+    {
+        return subCommand(container, name).execute(null, null);
+    }
+
+    @Test
+    public void testResults() throws Throwable
+    {
+        Commands commands = new Commands();
+        assertTrue(execute(commands, "voidCommand"));
+        assertEquals(1, commands.calls);
+        assertTrue(execute(commands, "trueCommand"));
+        assertFalse(execute(commands, "falseCommand"));
+        assertFalse(execute(commands, "boxedFalseCommand"));
+        assertTrue(execute(commands, "nullCommand"));
+        assertFalse(execute(commands, "objectFalseCommand"));
+        assertTrue(execute(commands, "stringCommand"));
+        assertTrue(execute(commands, "intCommand"));
+        assertTrue(execute(commands, "longCommand"));
+        assertFalse(execute(commands, "staticCommand"));
+        assertFalse(execute(commands, "inheritedCommand"));
+    }
+
+    @Test
+    public void testArguments() throws Throwable
+    {
+        Commands commands = new Commands();
+        CommandArgs args = new CommandArgs(null, "base", null, new String[] {"label", "a"});
+        assertTrue(subCommand(commands, "argsCommand").execute(null, args));
+        assertSame(args, commands.lastArgs);
+    }
+
+    @Test
+    public void testPublicMethodsAreCalledDirectly()
+    {
+        Commands commands = new Commands();
+        assertTrue(InvokerFactory.isGenerated(subCommand(commands, "voidCommand").getInvoker()));
+        assertTrue(InvokerFactory.isGenerated(subCommand(commands, "staticCommand").getInvoker()));
+        assertTrue(InvokerFactory.isGenerated(subCommand(commands, "inheritedCommand").getInvoker()));
+        assertFalse(InvokerFactory.isGenerated(subCommand(commands, "privateCommand").getInvoker()));
+        assertFalse(InvokerFactory.isGenerated(subCommand(new HiddenCommands(), "hiddenCommand").getInvoker()));
+    }
+
+    @Test
+    public void testFallback() throws Throwable
+    {
+        Commands commands = new Commands();
+        assertFalse(execute(commands, "privateCommand"));
+        assertEquals(1, commands.calls);
+        assertFalse(execute(new HiddenCommands(), "hiddenCommand"));
+    }
+
+    @Test(expected = CommandException.class)
+    public void testCommandException() throws Throwable
+    {
+        execute(new Commands(), "failingCommand");
+    }
+
+    @Test(expected = IOException.class)
+    public void testCheckedException() throws Throwable
+    {
+        execute(new Commands(), "ioCommand");
+    }
+
+    @Test(expected = CommandException.class)
+    public void testFallbackException() throws Throwable
+    {
+        execute(new HiddenCommands(), "failingCommand");
+    }
+
+    public static class BaseCommands
+    {
+        public boolean inheritedCommand(CommandSender sender, CommandArgs args)
+        {
+            return false;
+        }
+    }
+
+    public static class Commands extends BaseCommands
+    {
+        public int calls;
+        public CommandArgs lastArgs;
+
+        public void voidCommand(CommandSender sender, CommandArgs args)
+        {
+            ++this.calls;
+        }
+
+        public boolean trueCommand(CommandSender sender, CommandArgs args)
+        {
+            return true;
+        }
+
+        public boolean falseCommand(CommandSender sender, CommandArgs args)
+        {
+            return false;
+        }
+
+        public Boolean boxedFalseCommand(CommandSender sender, CommandArgs args)
+        {
+            return Boolean.FALSE;
+        }
+
+        public Object nullCommand(CommandSender sender, CommandArgs args)
+        {
+            return null;
+        }
+
+        public Object objectFalseCommand(CommandSender sender, CommandArgs args)
+        {
+            return Boolean.FALSE;
+        }
+
+        public String stringCommand(CommandSender sender, CommandArgs args)
+        {
+            return "false";
+        }
+
+        public int intCommand(CommandSender sender, CommandArgs args)
+        {
+            return 0;
+        }
+
+        public long longCommand(CommandSender sender, CommandArgs args)
+        {
+            return 0L;
+        }
+
+        public static boolean staticCommand(CommandSender sender, CommandArgs args)
+        {
+            return false;
+        }
+
+        public boolean argsCommand(CommandSender sender, CommandArgs args)
+        {
+            this.lastArgs = args;
+            return true;
+        }
+
+        private boolean privateCommand(CommandSender sender, CommandArgs args)
+        {
+            ++this.calls;
+            return false;
+        }
+
+        public void failingCommand(CommandSender sender, CommandArgs args)
+        {
+            throw new CommandException("failed");
+        }
+
+        public void ioCommand(CommandSender sender, CommandArgs args) throws IOException
+        {
+            throw new IOException("failed");
+        }
+    }
+
+    static class HiddenCommands
+    {
+        public boolean hiddenCommand(CommandSender sender, CommandArgs args)
+        {
+            return false;
+        }
+
+        public void failingCommand(CommandSender sender, CommandArgs args)
+        {
+            throw new CommandException("failed");
+        }
+    }
+}
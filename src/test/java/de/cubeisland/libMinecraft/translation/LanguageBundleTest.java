@@ -0,0 +1,162 @@
+package de.cubeisland.libMinecraft.translation;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Map;
+import org.junit.Test;
+
+import static de.cubeisland.libMinecraft.translation.LanguageParserTest.toMap;
+import static de.cubeisland.libMinecraft.translation.LanguageParserTest.utf8;
+import static org.junit.Assert.*;
+
+/**
+ * Compares language bundles with the language files they got compiled from
+ */
+public class LanguageBundleTest
+{
+    private static final String LANGUAGE_FILE =
+        "; comment\n" +
+        "[section]\n" +
+        "bundle.plain = Hello world\n" +
+        "bundle.colored = &aGreen &lbold &rreset\n" +
+        "bundle.raw = @ &aNot colored\n" +
+        "bundle.quoted = \"  padded  \"\n" +
+        "bundle.format = %s has %d coins (%.2f%%)\n" +
+        "bundle.indexed = %2$s %1$s\n" +
+        "bundle.multiline = first%nsecond\n" +
+        "bundle.unicode = \u00E4\u20AC\u00DF \uD83D\uDE00\n" +
+        "bundle.empty =\n" +
+        "Bundle.Upper = case insensitive\n";
+
+    private static byte[] write(MessageTemplate[] messages) throws IOException
+    {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        LanguageBundle.write(messages, bos);
+        return bos.toByteArray();
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException
+    {
+        MessageTemplate[] parsed = LanguageParser.parse(new ByteArrayInputStream(utf8(LANGUAGE_FILE)));
+        Map<String, String> expected = toMap(parsed);
+        assertEquals(10, expected.size());
+
+        byte[] bundle = write(parsed);
+        assertEquals(expected, toMap(LanguageBundle.read(new ByteArrayInputStream(bundle))));
+        assertEquals(expected, toMap(LanguageBundle.read(ByteBuffer.wrap(bundle))));
+
+        // writing the read messages again gives the same bundle
+        assertTrue(Arrays.equals(bundle, write(LanguageBundle.read(new ByteArrayInputStream(bundle)))));
+    }
+
+    @Test
+    public void testRendering() throws IOException
+    {
+        MessageTemplate[] parsed = LanguageParser.parse(new ByteArrayInputStream(utf8(LANGUAGE_FILE)));
+        MessageTemplate[] read = LanguageBundle.read(new ByteArrayInputStream(write(parsed)));
+        final Object[] params = {"player", 42, 1.5};
+        for (int id = 0; id < parsed.length; ++id)
+        {
+            if (parsed[id] != null)
+            {
+                assertEquals(parsed[id].isConstant(), read[id].isConstant());
+                assertEquals(parsed[id].render(params), read[id].render(params));
+            }
+        }
+    }
+
+    @Test
+    public void testCompiledTranslation() throws IOException
+    {
+        File source = File.createTempFile("language", Translation.RESOURCE_EXT);
+        File target = File.createTempFile("language", Translation.BUNDLE_EXT);
+        try
+        {
+            FileOutputStream fos = new FileOutputStream(source);
+            try
+            {
+                fos.write(utf8(LANGUAGE_FILE));
+            }
+            finally
+            {
+                fos.close();
+            }
+            TranslationCompiler.compile(source, target);
+            assertEquals(toMap(LanguageParser.parse(source)), toMap(LanguageBundle.read(target)));
+
+            Translation ini = new Translation(source, "test");
+            Translation lang = new Translation(target, "test");
+            for (String key : new String[] {"bundle.plain", "bundle.colored", "bundle.format", "BUNDLE.UPPER", "bundle.missing"})
+            {
+                assertEquals(key, ini.translate(key, "player", 42, 1.5), lang.translate(key, "player", 42, 1.5));
+            }
+        }
+        finally
+        {
+            source.delete();
+            target.delete();
+        }
+    }
+
+    @Test
+    public void testEmptyBundle() throws IOException
+    {
+        assertEquals(0, toMap(LanguageBundle.read(new ByteArrayInputStream(write(new MessageTemplate[0])))).size());
+    }
+
+    @Test(expected = IOException.class)
+    public void testInvalidMagic() throws IOException
+    {
+        byte[] bundle = write(LanguageParser.parse(new ByteArrayInputStream(utf8(LANGUAGE_FILE))));
+        bundle[0] = 'X';
+        LanguageBundle.read(new ByteArrayInputStream(bundle));
+    }
+
+    @Test(expected = IOException.class)
+    public void testUnsupportedVersion() throws IOException
+    {
+        byte[] bundle = write(LanguageParser.parse(new ByteArrayInputStream(utf8(LANGUAGE_FILE))));
+        bundle[7] = 2;
+        LanguageBundle.read(new ByteArrayInputStream(bundle));
+    }
+
+    @Test(expected = IOException.class)
+    public void testTruncated() throws IOException
+    {
+        byte[] bundle = write(LanguageParser.parse(new ByteArrayInputStream(utf8(LANGUAGE_FILE))));
+        LanguageBundle.read(new ByteArrayInputStream(Arrays.copyOf(bundle, bundle.length - 1)));
+    }
+
+    private static byte[] corrupt(int field, int value) throws IOException
+    {
+        byte[] bundle = write(LanguageParser.parse(new ByteArrayInputStream(utf8(LANGUAGE_FILE))));
+        // the index of the first message starts right after the 12 byte header
+        ByteBuffer.wrap(bundle).putInt(12 + field * 4, value);
+        return bundle;
+    }
+
+    @Test(expected = IOException.class)
+    public void testOverflowingKeyOffset() throws IOException
+    {
+        // offset + length used to overflow and pass the bounds check
+        LanguageBundle.read(new ByteArrayInputStream(corrupt(0, Integer.MAX_VALUE)));
+    }
+
+    @Test(expected = IOException.class)
+    public void testOverflowingMessageOffset() throws IOException
+    {
+        LanguageBundle.read(new ByteArrayInputStream(corrupt(2, Integer.MAX_VALUE)));
+    }
+
+    @Test(expected = IOException.class)
+    public void testOverflowingLength() throws IOException
+    {
+        LanguageBundle.read(new ByteArrayInputStream(corrupt(3, Integer.MAX_VALUE)));
+    }
+}
@@ -0,0 +1,81 @@
+package de.cubeisland.libMinecraft.translation;
+
+import gnu.trove.map.hash.THashMap;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import static de.cubeisland.libMinecraft.translation.LanguageParserTest.legacyParse;
+import static de.cubeisland.libMinecraft.translation.LanguageParserTest.utf8;
+
+/**
+ * Compares loading a language file with the old loader, the language parser and a precompiled bundle
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LanguageParserBenchmark
+{
+    @Param({"50", "1000"})
+    public int messages;
+
+    private byte[] file;
+    private byte[] bundle;
+
+    @Setup
+    public void setUp() throws IOException
+    {
+        StringBuilder sb = new StringBuilder();
+        sb.append("; generated language file\n[messages]\n");
+        for (int i = 0; i < this.messages; ++i)
+        {
+            sb.append("benchmark.message").append(i).append(" = &aPlayer &e%s&a has &c%d&a coins, ");
+            sb.append("\u00E4\u00F6\u00FC ").append(i).append('\n');
+        }
+        this.file = utf8(sb.toString());
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        LanguageBundle.write(LanguageParser.parse(new ByteArrayInputStream(this.file)), bos);
+        this.bundle = bos.toByteArray();
+    }
+
+    /**
+     * The old Translation constructor: 512 byte chunks, one string, explode and a map
+     */
+    @Benchmark
+    public Map<String, String> legacy() throws IOException
+    {
+        InputStream is = new ByteArrayInputStream(this.file);
+        StringBuilder sb = new StringBuilder();
+        byte[] buffer = new byte[512];
+        int bytesRead;
+        while ((bytesRead = is.read(buffer)) > 0)
+        {
+            sb.append(new String(buffer, 0, bytesRead, "UTF-8"));
+        }
+        is.close();
+        return legacyParse(sb.toString(), new THashMap<String, String>());
+    }
+
+    @Benchmark
+    public MessageTemplate[] parser() throws IOException
+    {
+        return LanguageParser.parse(new ByteArrayInputStream(this.file));
+    }
+
+    @Benchmark
+    public MessageTemplate[] bundle() throws IOException
+    {
+        return LanguageBundle.read(new ByteArrayInputStream(this.bundle));
+    }
+}
@@ -0,0 +1,244 @@
+package de.cubeisland.libMinecraft.translation;
+
+import de.cubeisland.libMinecraft.ChatColor;
+import de.cubeisland.libMinecraft.StringUtils;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Compares the language parser with the line based loader it replaced
+ */
+public class LanguageParserTest
+{
+    /**
+     * The loader of the old Translation constructor
+     */
+    static Map<String, String> legacyParse(String content)
+    {
+        return legacyParse(content, new TreeMap<String, String>());
+    }
+
+    static Map<String, String> legacyParse(String content, Map<String, String> translations)
+    {
+        int equalsOffset;
+        char firstChar;
+        String key;
+        String message;
+        boolean parseColors;
+        for (String line : StringUtils.explode("\n", content.trim()))
+        {
+            if (line.length() == 0)
+            {
+                continue;
+            }
+            firstChar = line.charAt(0);
+            parseColors = true;
+            if (firstChar == ';' || firstChar == '[')
+            {
+                continue;
+            }
+            equalsOffset = line.indexOf("=");
+            if (equalsOffset < 1)
+            {
+                continue;
+            }
+
+            key = line.substring(0, equalsOffset).trim().toLowerCase();
+            message = line.substring(equalsOffset + 1).trim();
+            if (message.length() > 0 && message.charAt(0) == '@')
+            {
+                message = message.substring(1).trim();
+                parseColors = false;
+            }
+            if (message.length() > 2 && message.charAt(0) == '"' && message.charAt(message.length() - 1) == '"')
+            {
+                message = message.substring(1, message.length() - 1);
+            }
+
+            if (parseColors)
+            {
+                message = ChatColor.translateAlternateColorCodes('&', message);
+            }
+            translations.put(key, message);
+        }
+        return translations;
+    }
+
+    static Map<String, String> toMap(MessageTemplate[] messages)
+    {
+        Map<String, String> translations = new TreeMap<String, String>();
+        for (int id = 0; id < messages.length; ++id)
+        {
+            if (messages[id] != null)
+            {
+                translations.put(MessageKey.byId(id).getName(), messages[id].getFormat());
+            }
+        }
+        return translations;
+    }
+
+    static byte[] utf8(String content)
+    {
+        try
+        {
+            return content.getBytes("UTF-8");
+        }
+        catch (UnsupportedEncodingException e)
+        {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Parses the content from a stream, a heap buffer, a direct buffer and a file,
+     * checks that all of them agree and returns the result
+     */
+    private static Map<String, String> parse(String content) throws IOException
+    {
+        Map<String, String> parsed = toMap(LanguageParser.parse(new ByteArrayInputStream(utf8(content))));
+        assertEquals(content, parsed, toMap(LanguageParser.parse(CharBuffer.wrap(content))));
+
+        CharBuffer direct = ByteBuffer.allocateDirect(content.length() * 2).asCharBuffer();
+        direct.put(content).flip();
+        assertEquals(content, parsed, toMap(LanguageParser.parse(direct)));
+
+        File file = File.createTempFile("language", ".ini");
+        try
+        {
+            FileOutputStream fos = new FileOutputStream(file);
+            try
+            {
+                fos.write(utf8(content));
+            }
+            finally
+            {
+                fos.close();
+            }
+            assertEquals(content, parsed, toMap(LanguageParser.parse(file)));
+        }
+        finally
+        {
+            file.delete();
+        }
+        return parsed;
+    }
+
+    private static void assertParsesLikeLegacy(String content) throws IOException
+    {
+        assertEquals(content, legacyParse(content), parse(content));
+    }
+
+    @Test
+    public void testCommentsAndSections() throws IOException
+    {
+        Map<String, String> parsed = parse("; comment = no message\n[section]\nkey = value\n[other = section]\n;key = commented out");
+        assertEquals(1, parsed.size());
+        assertEquals("value", parsed.get("key"));
+        assertParsesLikeLegacy("; comment = no message\n[section]\nkey = value\n[other = section]\n;key = commented out");
+        assertParsesLikeLegacy("no equals sign\n= no key\n  ; indented = comment");
+    }
+
+    @Test
+    public void testWhitespaceAndKeys() throws IOException
+    {
+        Map<String, String> parsed = parse("\n\n   \n  First.Key\t=\t  spaced  message \t\nempty =\nequals = a = b");
+        assertEquals("spaced  message", parsed.get("first.key"));
+        assertEquals("", parsed.get("empty"));
+        assertEquals("a = b", parsed.get("equals"));
+        assertParsesLikeLegacy("\n\n   \n  First.Key\t=\t  spaced  message \t\nempty =\nequals = a = b");
+        assertParsesLikeLegacy("dup = first\nDUP = second");
+        assertParsesLikeLegacy("");
+        assertParsesLikeLegacy("   \n\t\n");
+    }
+
+    @Test
+    public void testQuotes() throws IOException
+    {
+        Map<String, String> parsed = parse("quoted = \"  padded  \"\nshort = \"\"\nsingle = \"\nunbalanced = \"open\ninner = a \"b\" c");
+        assertEquals("  padded  ", parsed.get("quoted"));
+        assertEquals("\"\"", parsed.get("short"));
+        assertEquals("\"", parsed.get("single"));
+        assertEquals("\"open", parsed.get("unbalanced"));
+        assertEquals("a \"b\" c", parsed.get("inner"));
+        assertParsesLikeLegacy("quoted = \"  padded  \"\nshort = \"\"\nsingle = \"\nunbalanced = \"open\ninner = a \"b\" c\nthree = \"x\"");
+    }
+
+    @Test
+    public void testRawMessagesAndColors() throws IOException
+    {
+        Map<String, String> parsed = parse("colored = &aGreen &lbold &&x &z\nraw = @ &aNot colored\nrawquoted = @\"&c \"\nat = a@b");
+        assertEquals(ChatColor.translateAlternateColorCodes('&', "&aGreen &lbold &&x &z"), parsed.get("colored"));
+        assertEquals("&aNot colored", parsed.get("raw"));
+        assertEquals("&c ", parsed.get("rawquoted"));
+        assertEquals("a@b", parsed.get("at"));
+        assertParsesLikeLegacy("colored = &aGreen &lbold &&x &z\nraw = @ &aNot colored\nrawquoted = @\"&c \"\nat = a@b\nonly = @");
+    }
+
+    @Test
+    public void testLineEndings() throws IOException
+    {
+        assertEquals(parse("a = 1\nb = \"2\"\n;c = 3\n"), parse("a = 1\r\nb = \"2\"\r\n;c = 3\r\n"));
+        assertParsesLikeLegacy("a = 1\r\nb = \"2\"\r\n[s]\r\n;c = 3\r\n");
+        assertParsesLikeLegacy("a = 1\rb = 2");
+    }
+
+    @Test
+    public void testByteOrderMark() throws IOException
+    {
+        Map<String, String> parsed = parse("\uFEFFkey = value\nother = \uFEFF");
+        assertEquals("value", parsed.get("key"));
+        assertEquals("\uFEFF", parsed.get("other"));
+        assertEquals(parse("; comment\nkey = value"), parse("\uFEFF; comment\nkey = value"));
+    }
+
+    @Test
+    public void testLongLines() throws IOException
+    {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 20000; ++i)
+        {
+            sb.append((char)('a' + i % 26));
+        }
+        String longMessage = sb.toString();
+        Map<String, String> parsed = parse("before = 1\nlong = " + longMessage + "\nafter = \u00E4\u20AC\u00DF");
+        assertEquals(longMessage, parsed.get("long"));
+        assertEquals("\u00E4\u20AC\u00DF", parsed.get("after"));
+
+        // multibyte characters crossing the boundaries of the read buffer
+        sb.setLength(0);
+        for (int i = 0; i < 3000; ++i)
+        {
+            sb.append("k").append(i).append(" = \u00E4\u20AC\u00DF ").append(i).append('\n');
+        }
+        assertParsesLikeLegacy(sb.toString());
+    }
+
+    @Test
+    public void testRandomFiles() throws IOException
+    {
+        final String[] parts = {"a", "b", "Key", "=", " ", "\t", "\r", "\n", "\n", ";", "[", "]", "@", "\"", "&", "&a", "%s", "\u00E4", "\u20AC"};
+        Random random = new Random(42);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 2000; ++i)
+        {
+            sb.setLength(0);
+            int length = random.nextInt(40);
+            for (int j = 0; j < length; ++j)
+            {
+                sb.append(parts[random.nextInt(parts.length)]);
+            }
+            assertParsesLikeLegacy(sb.toString());
+        }
+    }
+}
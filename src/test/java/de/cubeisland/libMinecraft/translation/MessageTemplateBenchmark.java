@@ -0,0 +1,55 @@
+package de.cubeisland.libMinecraft.translation;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Compares rendering compiled templates with String.format, which rendered the messages before
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MessageTemplateBenchmark
+{
+    @Param({"You don't have permission!", "%s has %d coins", "%2$s was kicked by %1$s", "%s: %.2f%%"})
+    public String format;
+
+    private MessageTemplate template;
+    private Object[] params;
+
+    @Setup
+    public void setUp()
+    {
+        this.template = MessageTemplate.compile(this.format);
+        this.params = new Object[] {"Notch", 42};
+        if (this.format.indexOf("%.2f") >= 0)
+        {
+            this.params[1] = 12.345;
+        }
+    }
+
+    @Benchmark
+    public String stringFormat()
+    {
+        return String.format(this.format, this.params);
+    }
+
+    @Benchmark
+    public String template()
+    {
+        return this.template.render(this.params);
+    }
+
+    @Benchmark
+    public String compileAndRender()
+    {
+        return MessageTemplate.compile(this.format).render(this.params);
+    }
+}
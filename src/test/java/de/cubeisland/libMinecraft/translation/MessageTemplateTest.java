@@ -0,0 +1,137 @@
+package de.cubeisland.libMinecraft.translation;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Random;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Compares rendered templates with String.format
+ */
+public class MessageTemplateTest
+{
+    private static final Object[] NO_PARAMS = new Object[0];
+
+    private static void assertRendersLikeFormat(String format, Object... params)
+    {
+        String expected;
+        try
+        {
+            expected = String.format(format, params);
+        }
+        catch (RuntimeException e)
+        {
+            try
+            {
+                MessageTemplate.compile(format).render(params);
+                fail("Expected " + e.getClass().getSimpleName() + " for '" + format + "'");
+            }
+            catch (RuntimeException e2)
+            {
+                assertEquals(format, e.getClass(), e2.getClass());
+            }
+            return;
+        }
+        assertEquals(format, expected, MessageTemplate.compile(format).render(params));
+    }
+
+    @Test
+    public void testConstant()
+    {
+        MessageTemplate template = MessageTemplate.compile("You don't have permission!");
+        assertTrue(template.isConstant());
+        assertEquals("You don't have permission!", template.render());
+        assertTrue(MessageTemplate.compile("100%% done").isConstant());
+        assertFalse(MessageTemplate.compile("%s").isConstant());
+        assertEquals("", MessageTemplate.compile("").render());
+    }
+
+    @Test
+    public void testPlainSpecifiers()
+    {
+        assertRendersLikeFormat("Hello %s!", "world");
+        assertRendersLikeFormat("%s has %d coins", "player", 42);
+        assertRendersLikeFormat("%d %d %d %d", 1, 2L, (short)3, (byte)4);
+        assertRendersLikeFormat("%s", (Object)null);
+        assertRendersLikeFormat("%s", 1.5);
+        assertRendersLikeFormat("%d", -9223372036854775808L);
+    }
+
+    @Test
+    public void testIndexedAndRelativeArguments()
+    {
+        assertRendersLikeFormat("%2$s %1$s", "a", "b");
+        assertRendersLikeFormat("%s %<s %s", "a", "b");
+        assertRendersLikeFormat("%2$s %s %s", "a", "b");
+    }
+
+    @Test
+    public void testComplexSpecifiers()
+    {
+        assertRendersLikeFormat("%.2f%%", 12.345);
+        assertRendersLikeFormat("[%5s|%-5s]", "ab", "cd");
+        assertRendersLikeFormat("%05d %x %X %o", 42, 255, 255, 8);
+        assertRendersLikeFormat("%,d", 1234567);
+        assertRendersLikeFormat("%b %c %S", true, 'x', "up");
+        assertRendersLikeFormat("%tY", new java.util.Date(0));
+        assertRendersLikeFormat("line%nbreak");
+    }
+
+    @Test
+    public void testErrors()
+    {
+        assertRendersLikeFormat("%s %s", "only one");
+        assertRendersLikeFormat("%d", "not a number");
+        assertRendersLikeFormat("%q", "unknown conversion");
+        assertRendersLikeFormat("trailing %");
+        assertRendersLikeFormat("%0$s", "zero index");
+        assertRendersLikeFormat("%<s", "no previous");
+        assertRendersLikeFormat("%.f", 1.0);
+        assertRendersLikeFormat("%99999999999$s", "oversized index");
+        assertRendersLikeFormat("%2147483648$s and %s", "overflowing index");
+    }
+
+    @Test
+    public void testOversizedIndexOnlyFailsItsMessage() throws IOException
+    {
+        MessageTemplate[] messages = LanguageParser.parse(new ByteArrayInputStream(LanguageParserTest.utf8("template.before = ok\ntemplate.broken = %99999999999$s\ntemplate.after = %s")));
+        assertEquals("ok", messages[MessageKey.get("template.before").getId()].render());
+        assertEquals("x", messages[MessageKey.get("template.after").getId()].render("x"));
+        assertNotNull(messages[MessageKey.get("template.broken").getId()]);
+    }
+
+    @Test
+    public void testNullParams()
+    {
+        assertEquals(String.format("static"), MessageTemplate.compile("static").render((Object[])null));
+        assertRendersLikeFormat("%s", NO_PARAMS);
+    }
+
+    @Test
+    public void testRandomFormats()
+    {
+        final String[] pieces = {"a", " ", "%s", "%d", "%%", "%1$s", "%<s", "%2$d", "%5s", "%-3d", "%.1s", "%x", "%", "$", "1", "%n"};
+        final Object[][] params = {
+            NO_PARAMS,
+            {"x"},
+            {7},
+            {"x", 7},
+            {7, "x", 3L},
+            {null, 12}
+        };
+        final Random random = new Random(7);
+        StringBuilder format = new StringBuilder();
+        for (int n = 0; n < 20000; ++n)
+        {
+            format.setLength(0);
+            int length = random.nextInt(6);
+            for (int i = 0; i < length; ++i)
+            {
+                format.append(pieces[random.nextInt(pieces.length)]);
+            }
+            assertRendersLikeFormat(format.toString(), params[random.nextInt(params.length)]);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package de.cubeisland.libMinecraft.translation;
+
+import java.io.IOException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that the selector only holds a bounded number of per locale translations
+ */
+public class TranslationSelectorTest
+{
+    private static final String[] LANGUAGES = {"de", "fr", "es", "it", "nl"};
+
+    private Translation english;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        Translation.clearCache(TranslationSelectorTest.class);
+        this.english = new Translation(TranslationSelectorTest.class, "en");
+    }
+
+    @After
+    public void tearDown()
+    {
+        Translation.clearCache(TranslationSelectorTest.class);
+    }
+
+    @Test
+    public void testFallbackChain()
+    {
+        TranslationSelector selector = new TranslationSelector(TranslationSelectorTest.class, this.english, 4);
+        assertEquals("Servus", selector.getTranslation("de_AT").translate("selector.greeting"));
+        assertEquals("Bye", selector.getTranslation("de_AT").translate("selector.farewell"));
+        assertEquals("Hallo", selector.getTranslation("de_DE").translate("selector.greeting"));
+        assertEquals("Hello", selector.getTranslation("xx_XX").translate("selector.greeting"));
+        assertSame(this.english, selector.getTranslation((String)null));
+    }
+
+    @Test
+    public void testLoadedLanguagesAreBounded()
+    {
+        TranslationSelector selector = new TranslationSelector(TranslationSelectorTest.class, this.english, 2);
+        for (int round = 0; round < 3; ++round)
+        {
+            for (String language : LANGUAGES)
+            {
+                Translation translation = selector.getTranslation(language + "_" + language.toUpperCase());
+                assertFalse(translation.translate("selector.greeting").equals("Hello"));
+                assertTrue(selector.getLoadedLanguageCount() <= 2);
+            }
+        }
+        for (String language : LANGUAGES)
+        {
+            assertNull(language, Translation.getCached(TranslationSelectorTest.class, language));
+        }
+    }
+
+    @Test
+    public void testSharedTranslationsAreUsed()
+    {
+        Translation german = Translation.get(TranslationSelectorTest.class, "de");
+        assertNotNull(german);
+        TranslationSelector selector = new TranslationSelector(TranslationSelectorTest.class, this.english, 2);
+        assertEquals("Hallo", selector.getTranslation("de_DE").translate("selector.greeting"));
+        assertEquals(0, selector.getLoadedLanguageCount());
+        assertSame(german, Translation.getCached(TranslationSelectorTest.class, "de"));
+    }
+
+    @Test
+    public void testClearCacheDropsLoadedLanguages()
+    {
+        TranslationSelector selector = new TranslationSelector(TranslationSelectorTest.class, this.english, 4);
+        selector.getTranslation("fr_FR");
+        selector.getTranslation("es_ES");
+        assertEquals(2, selector.getLoadedLanguageCount());
+        Translation.clearCache(TranslationSelectorTest.class);
+        selector.getTranslation("it_IT");
+        assertEquals(1, selector.getLoadedLanguageCount());
+        selector.clear();
+        assertEquals(0, selector.getLoadedLanguageCount());
+    }
+}